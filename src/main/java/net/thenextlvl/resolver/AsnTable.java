@@ -0,0 +1,237 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.Cidr;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An immutable table mapping IPv4 prefixes to the autonomous system announcing them,
+ * used to tag scan results with their network operator or hosting provider.
+ * <p>
+ * The table is read from a text file with one prefix per line, followed by the AS number and
+ * optionally the name of the organization, separated by whitespace:
+ * <pre>
+ * # prefix        asn       organization
+ * 1.1.1.0/24      13335     CLOUDFLARENET
+ * 5.9.0.0/16      AS24940   Hetzner Online GmbH
+ * </pre>
+ * Blank lines, comments starting with {@code #} and IPv6 prefixes are skipped. When prefixes overlap,
+ * the most specific one wins, and of two identical prefixes the one further down the file.
+ * <p>
+ * On load, the prefixes are flattened into disjoint address ranges, stored in sorted primitive arrays
+ * alongside an index of the first range of every /16 block. A lookup is a short binary search within
+ * a single /16 block and never allocates, so any number of threads can tag results without locking.
+ */
+@NullMarked
+public final class AsnTable {
+    private final int[] blocks = new int[(1 << 16) + 1];
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] tags;
+    private final ServerPing.Asn[] asns;
+
+    private AsnTable(int[] starts, int[] ends, int[] tags, ServerPing.Asn[] asns) {
+        this.starts = starts;
+        this.ends = ends;
+        this.tags = tags;
+        this.asns = asns;
+        for (int block = 0, range = 0; block < blocks.length; block++) {
+            var base = (long) block << 16;
+            while (range < ends.length && Integer.toUnsignedLong(ends[range]) < base) range++;
+            blocks[block] = range;
+        }
+    }
+
+    /**
+     * Loads a table from the given file.
+     *
+     * @param file the prefix file
+     * @return the loaded table
+     * @throws IOException if the file cannot be read or contains a malformed line
+     */
+    public static AsnTable load(Path file) throws IOException {
+        try (var reader = Files.newBufferedReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads a table from the given reader, without closing it.
+     *
+     * @param reader the reader providing the prefix lines
+     * @return the read table
+     * @throws IOException if the reader fails or provides a malformed line
+     */
+    public static AsnTable read(Reader reader) throws IOException {
+        var buffered = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+        var prefixes = new ArrayList<Prefix>();
+        var ids = new HashMap<ServerPing.Asn, Integer>();
+        var asns = new ArrayList<ServerPing.Asn>();
+
+        var number = 0;
+        for (String line; (line = buffered.readLine()) != null; ) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            var parts = line.split("\\s+", 3);
+            if (parts[0].indexOf(':') >= 0) continue;
+            try {
+                if (parts.length < 2) throw new IllegalArgumentException("Missing AS number");
+                var range = Cidr.toRange(parts[0]);
+                var asn = Integer.parseUnsignedInt(parts[1].regionMatches(true, 0, "AS", 0, 2) ? parts[1].substring(2) : parts[1]);
+                var organization = parts.length > 2 ? parts[2] : "AS" + Integer.toUnsignedString(asn);
+                var tag = ids.computeIfAbsent(new ServerPing.Asn(asn, organization), key -> {
+                    asns.add(key);
+                    return asns.size() - 1;
+                });
+                prefixes.add(new Prefix(range[0], range[1], tag));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed line " + number + ": " + line, e);
+            }
+        }
+        return flatten(prefixes, asns.toArray(ServerPing.Asn[]::new));
+    }
+
+    /**
+     * Returns the autonomous system announcing the given address.
+     *
+     * @param address the address
+     * @return the autonomous system, or null if the address is not IPv4 or not in the table
+     */
+    public ServerPing.@Nullable Asn lookup(InetAddress address) {
+        if (!(address instanceof Inet4Address)) return null;
+        var bytes = address.getAddress();
+        return lookup((bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF));
+    }
+
+    /**
+     * Returns the autonomous system announcing the given address.
+     *
+     * @param address the IPv4 address as a 32-bit value
+     * @return the autonomous system, or null if the address is not in the table
+     */
+    public ServerPing.@Nullable Asn lookup(int address) {
+        var block = address >>> 16;
+        var first = blocks[block];
+        var low = first;
+        var high = Math.min(blocks[block + 1], starts.length - 1);
+        // find the last range starting at or before the address
+        while (low <= high) {
+            var mid = (low + high) >>> 1;
+            if (Integer.compareUnsigned(starts[mid], address) <= 0) low = mid + 1;
+            else high = mid - 1;
+        }
+        if (high < first || Integer.compareUnsigned(address, ends[high]) > 0) return null;
+        return asns[tags[high]];
+    }
+
+    /**
+     * Tags the given result with the autonomous system announcing its address.
+     *
+     * @param ping the result to tag
+     * @return the given result
+     * @see ServerPing#getAsn()
+     */
+    public ServerPing tag(ServerPing ping) {
+        var address = ping.getAddress();
+        if (!address.isUnresolved()) ping.setAsn(lookup(address.getAddress()));
+        return ping;
+    }
+
+    /**
+     * Creates an enrichment stage that tags every result before handing it to the given consumer.
+     * <p>
+     * The returned consumer can be passed to any scanner in place of its success callback.
+     *
+     * @param downstream the consumer receiving the tagged results, like a {@link net.thenextlvl.resolver.sink.ResultSink}
+     * @return the tagging consumer
+     */
+    public Consumer<ServerPing> enrich(Consumer<ServerPing> downstream) {
+        return ping -> downstream.accept(tag(ping));
+    }
+
+    /**
+     * Returns the number of disjoint address ranges in this table.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Flattens nested prefixes into disjoint ranges, letting the more specific prefix win.
+     * CIDR blocks are either nested or disjoint, so sorting them by start and then by size
+     * turns the prefixes into a tree that can be walked with a stack.
+     */
+    private static AsnTable flatten(List<Prefix> prefixes, ServerPing.Asn[] asns) {
+        prefixes.sort(Comparator.comparingLong(Prefix::start).thenComparing(Comparator.comparingLong(Prefix::end).reversed()));
+        var ranges = new Ranges(prefixes.size());
+        var stack = new ArrayDeque<Prefix>();
+        var cursor = 0L;
+        for (var prefix : prefixes) {
+            while (!stack.isEmpty() && stack.peek().end() < prefix.start()) {
+                var parent = stack.pop();
+                ranges.add(cursor, parent.end(), parent.tag());
+                cursor = parent.end() + 1;
+            }
+            if (!stack.isEmpty()) ranges.add(cursor, prefix.start() - 1, stack.peek().tag());
+            cursor = prefix.start();
+            stack.push(prefix);
+        }
+        while (!stack.isEmpty()) {
+            var parent = stack.pop();
+            ranges.add(cursor, parent.end(), parent.tag());
+            cursor = parent.end() + 1;
+        }
+        return ranges.build(asns);
+    }
+
+    private record Prefix(long start, long end, int tag) {
+    }
+
+    /**
+     * Collects sorted disjoint ranges, joining adjacent ranges of the same autonomous system.
+     */
+    private static final class Ranges {
+        private final List<long[]> ranges;
+
+        private Ranges(int capacity) {
+            this.ranges = new ArrayList<>(capacity);
+        }
+
+        private void add(long start, long end, int tag) {
+            if (start > end) return;
+            var last = ranges.isEmpty() ? null : ranges.getLast();
+            if (last != null && last[2] == tag && last[1] + 1 == start) last[1] = end;
+            else ranges.add(new long[]{start, end, tag});
+        }
+
+        private AsnTable build(ServerPing.Asn[] asns) {
+            var starts = new int[ranges.size()];
+            var ends = new int[ranges.size()];
+            var tags = new int[ranges.size()];
+            for (var i = 0; i < ranges.size(); i++) {
+                var range = ranges.get(i);
+                starts[i] = (int) range[0];
+                ends[i] = (int) range[1];
+                tags[i] = (int) range[2];
+            }
+            return new AsnTable(starts, ends, tags, asns);
+        }
+    }
+}
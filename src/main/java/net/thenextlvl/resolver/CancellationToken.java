@@ -0,0 +1,59 @@
+package net.thenextlvl.resolver;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A token used to cancel a group of pings that are in flight.
+ * <p>
+ * Pings started with a token register their socket with it. Cancelling the token closes every
+ * registered socket, which aborts a blocking connect or read right away, and makes every ping that
+ * is started afterward fail immediately. Either way the ping fails with a {@link PingCancelledException}.
+ *
+ * @see Ping#ping(PingOptions, CancellationToken)
+ */
+@NullMarked
+public final class CancellationToken {
+    private final Set<Closeable> resources = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels this token and closes every registered resource.
+     */
+    public void cancel() {
+        cancelled = true;
+        resources.forEach(CancellationToken::closeQuietly);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a resource to be closed when this token is cancelled.
+     *
+     * @param resource the resource to register
+     * @return false if the token was already cancelled, in which case the resource is not registered
+     */
+    boolean register(Closeable resource) {
+        resources.add(resource);
+        if (!cancelled) return true;
+        resources.remove(resource);
+        return false;
+    }
+
+    void unregister(Closeable resource) {
+        resources.remove(resource);
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
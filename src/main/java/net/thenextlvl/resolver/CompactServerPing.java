@@ -0,0 +1,235 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * A memory-compact representation of a {@link ServerPing}, meant for keeping large scans in memory.
+ * <p>
+ * All strings that repeat across servers - the version name, the guessed brand and the mod type -
+ * are encoded as ids of a shared {@link StringDictionary}, and the remaining values are
+ * kept as primitive fields. The address is stored as its 128-bit IPv6 form, with IPv4 addresses mapped
+ * into {@code ::ffff:0:0/96}. This brings a result down to well below a hundred bytes of heap,
+ * instead of the several Velocity wrapper objects and strings held by a {@link ServerPing}.
+ * <p>
+ * The description, the player sample, the favicon and the mod list are not retained. Descriptions are close
+ * to unique per server and can be large, so interning them in the never-evicting dictionary would grow it
+ * by one entry per server.
+ */
+@NullMarked
+public final class CompactServerPing {
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFF00000000L;
+
+    private final StringDictionary dictionary;
+    private final long addressHigh;
+    private final long addressLow;
+    private final char port;
+    private final boolean proxy;
+    private final int protocol;
+    private final int onlinePlayers;
+    private final int maxPlayers;
+    private final int latency;
+    private final int version;
+    private final int brand;
+    private final int modType;
+
+    private CompactServerPing(StringDictionary dictionary, long addressHigh, long addressLow, int port, boolean proxy,
+                              int protocol, int onlinePlayers, int maxPlayers, int latency,
+                              int version, int brand, int modType) {
+        this.dictionary = dictionary;
+        this.addressHigh = addressHigh;
+        this.addressLow = addressLow;
+        this.port = (char) port;
+        this.proxy = proxy;
+        this.protocol = protocol;
+        this.onlinePlayers = onlinePlayers;
+        this.maxPlayers = maxPlayers;
+        this.latency = latency;
+        this.version = version;
+        this.brand = brand;
+        this.modType = modType;
+    }
+
+    /**
+     * Creates the compact representation of the given ping response.
+     * The server type is guessed once using {@link ServerType#guess(ServerPing)}.
+     *
+     * @param ping       the ping response to compact
+     * @param dictionary the dictionary the strings of the response are encoded with
+     * @return the compact representation of the response
+     */
+    public static CompactServerPing of(ServerPing ping, StringDictionary dictionary) {
+        var type = ServerType.guess(ping);
+        var address = ping.getAddress();
+        var bytes = address.isUnresolved() ? new byte[16] : address.getAddress().getAddress();
+
+        long high = 0, low = 0;
+        if (bytes.length == 4) {
+            low = IPV4_MAPPED_PREFIX | (bytes[0] & 0xFFL) << 24 | (bytes[1] & 0xFFL) << 16 | (bytes[2] & 0xFFL) << 8 | bytes[3] & 0xFFL;
+        } else {
+            for (var i = 0; i < 8; i++) {
+                high = high << 8 | bytes[i] & 0xFF;
+                low = low << 8 | bytes[i + 8] & 0xFF;
+            }
+        }
+
+        var players = ping.getPlayers();
+        var version = ping.getVersion();
+
+        return new CompactServerPing(dictionary, high, low, address.getPort(), type.proxy(),
+                version != null ? version.getProtocol() : -1,
+                players != null ? players.getOnline() : -1,
+                players != null ? players.getMax() : -1,
+                (int) Math.min(Integer.MAX_VALUE, ping.getPing()),
+                dictionary.encode(version != null ? version.getName() : null),
+                dictionary.encode(type.brand()),
+                dictionary.encode(type.modType()));
+    }
+
+    /**
+     * Returns the address of the server, with IPv4-mapped addresses converted back to IPv4.
+     *
+     * @return the address of the server
+     */
+    public InetSocketAddress getAddress() {
+        var bytes = new byte[16];
+        for (var i = 0; i < 8; i++) {
+            bytes[i] = (byte) (addressHigh >>> (56 - i * 8));
+            bytes[i + 8] = (byte) (addressLow >>> (56 - i * 8));
+        }
+        try {
+            return new InetSocketAddress(InetAddress.getByAddress(bytes), port);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the most significant 64 bits of the 128-bit server address.
+     *
+     * @return the high half of the address
+     */
+    public long getAddressHigh() {
+        return addressHigh;
+    }
+
+    /**
+     * Returns the least significant 64 bits of the 128-bit server address.
+     *
+     * @return the low half of the address
+     */
+    public long getAddressLow() {
+        return addressLow;
+    }
+
+    /**
+     * Determines whether the server address is an IPv4 address.
+     *
+     * @return true if the address is IPv4-mapped
+     */
+    public boolean isIPv4() {
+        return addressHigh == 0 && (addressLow & 0xFFFFFFFF00000000L) == IPV4_MAPPED_PREFIX;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the protocol version reported by the server.
+     *
+     * @return the protocol version, or -1 if the server did not report a version
+     */
+    public int getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Returns the number of players online.
+     *
+     * @return the online player count, or -1 if the server did not report players
+     */
+    public int getOnlinePlayers() {
+        return onlinePlayers;
+    }
+
+    /**
+     * Returns the maximum number of players.
+     *
+     * @return the player limit, or -1 if the server did not report players
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public int getPing() {
+        return latency;
+    }
+
+    public @Nullable String getVersionName() {
+        return dictionary.decode(version);
+    }
+
+    /**
+     * Returns the server type guessed when this result was created.
+     *
+     * @return the server type
+     */
+    public ServerType getServerType() {
+        var brand = dictionary.decode(this.brand);
+        return new ServerType(brand != null ? brand : "unknown", dictionary.decode(modType), proxy);
+    }
+
+    /**
+     * Returns the dictionary id of the version name.
+     *
+     * @return the version id, or {@link StringDictionary#NULL}
+     */
+    public int getVersionId() {
+        return version;
+    }
+
+    /**
+     * Returns the dictionary id of the guessed brand.
+     *
+     * @return the brand id
+     */
+    public int getBrandId() {
+        return brand;
+    }
+
+    /**
+     * Returns the dictionary id of the mod type.
+     *
+     * @return the mod type id, or {@link StringDictionary#NULL}
+     */
+    public int getModTypeId() {
+        return modType;
+    }
+
+    public boolean isProxy() {
+        return proxy;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactServerPing{" +
+               "address=" + getAddress() +
+               ", protocol=" + protocol +
+               ", onlinePlayers=" + onlinePlayers +
+               ", maxPlayers=" + maxPlayers +
+               ", ping=" + latency +
+               ", version='" + getVersionName() + '\'' +
+               ", type=" + getServerType() +
+               '}';
+    }
+}
@@ -6,7 +6,11 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import net.thenextlvl.resolver.adapter.UUIDAdapter;
+import net.thenextlvl.resolver.store.FaviconStore;
+import net.thenextlvl.resolver.util.BufferPool;
+import net.thenextlvl.resolver.util.HashedWheelTimer;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import javax.naming.Context;
 import javax.naming.directory.InitialDirContext;
@@ -14,12 +18,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.BindException;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.util.Hashtable;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Ping class provides methods to ping a Minecraft server to retrieve its status and resolve its address.
@@ -31,6 +39,20 @@ public class Ping {
             .registerTypeAdapter(UUID.class, new UUIDAdapter())
             .create();
 
+    private static final int BIND_ATTEMPTS = 8;
+
+    /**
+     * The pool status responses are read into, sized for the largest vanilla status response.
+     * Most responses fit the small size classes, so the pool keeps at most 4 MiB rather than
+     * a full set of 128 KiB buffers.
+     */
+    private static final BufferPool BUFFERS = new BufferPool(PingUtil.MAX_STATUS_LENGTH, 256, 4 << 20);
+
+    /**
+     * The timer tracking the connect, read and exchange deadlines of every outstanding ping.
+     */
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("Ping Deadline Timer", 10, TimeUnit.MILLISECONDS, 1024);
+
     /**
      * Ping a server using specified {@link PingOptions} and retrieve the server ping response.
      *
@@ -39,16 +61,66 @@ public class Ping {
      * @throws IOException if an I/O error occurs during the ping process
      */
     public static ServerPing ping(PingOptions options) throws IOException {
-        String json;
+        return ping(options, null);
+    }
+
+    /**
+     * Ping a server using specified {@link PingOptions} and retrieve the server ping response.
+     * The ping is aborted as soon as the given token is cancelled.
+     *
+     * @param options the options containing server address, timeout, and protocol version for pinging the server
+     * @param token   the token that cancels the ping, or null if the ping cannot be cancelled
+     * @return the ping response from the server wrapped in a {@link ServerPing} object
+     * @throws PingCancelledException if the token was cancelled before the ping completed
+     * @throws IOException             if an I/O error occurs during the ping process, including a
+     *                                 {@link SocketTimeoutException} if the server did not respond in time
+     */
+    public static ServerPing ping(PingOptions options, @Nullable CancellationToken token) throws IOException {
+        try (var status = exchange(options, token)) {
+            return decode(status);
+        }
+    }
+
+    /**
+     * Performs the network part of a ping: connects to the server and reads its raw status response,
+     * without decoding it.
+     * <p>
+     * The returned status holds a pooled buffer, which is handed back to the pool once the status is closed.
+     * It may be closed on any thread, typically after {@link #decode(RawStatus)} ran on a different one.
+     *
+     * @param options the options containing server address, timeout, and protocol version for pinging the server
+     * @param token   the token that cancels the ping, or null if the ping cannot be cancelled
+     * @return the raw status response of the server
+     * @throws PingCancelledException if the token was cancelled before the ping completed
+     * @throws IOException             if an I/O error occurs during the ping process, including a
+     *                                 {@link SocketTimeoutException} if the server did not respond in time
+     */
+    public static RawStatus exchange(PingOptions options, @Nullable CancellationToken token) throws IOException {
+        byte @Nullable [] data = null;
+        var complete = false;
+        int length;
         long ping;
 
-        try (var socket = new Socket()) {
+        HashedWheelTimer.Timeout exchange = null;
+        HashedWheelTimer.Timeout phase = null;
+        var phaseName = "Connect";
+
+        var socket = new Socket();
+        try (socket) {
+            if (token != null && !token.register(socket)) throw new PingCancelledException(null);
+            configure(socket, options);
+            exchange = schedule(socket, options.getDeadline());
+            phase = schedule(socket, options.getTimeout());
 
             long start = System.currentTimeMillis();
-            socket.connect(options.getAddress(), options.getTimeout());
-            socket.setSoTimeout(options.getTimeout());
+            socket.connect(options.getAddress());
             ping = System.currentTimeMillis() - start;
 
+            if (phase != null) phase.cancel();
+            // unlike SO_TIMEOUT, this bounds the whole read phase rather than every single read
+            phase = schedule(socket, options.getTimeout());
+            phaseName = "Read";
+
             try (var input = new DataInputStream(socket.getInputStream());
                  var output = new DataOutputStream(socket.getOutputStream());
                  var byteArray = new ByteArrayOutputStream();
@@ -74,13 +146,14 @@ public class Ping {
                 Preconditions.checkState(id != -1, "Server prematurely ended stream.");
                 Preconditions.checkState(id == PingUtil.STATUS_REQUEST_PACKET, "Server returned invalid packet.");
 
-                var length = PingUtil.readVarInt(input);
+                length = PingUtil.readVarInt(input);
                 Preconditions.checkState(length != -1, "Server prematurely ended stream.");
                 Preconditions.checkState(length != 0, "Server returned unexpected value.");
+                if (length < 0 || length > options.getMaxResponseSize()) throw new ProtocolException(
+                        "Status response of " + length + " bytes exceeds the limit of " + options.getMaxResponseSize() + " bytes");
 
-                var data = new byte[length];
-                input.readFully(data);
-                json = new String(data, StandardCharsets.UTF_8);
+                data = BUFFERS.acquire(length);
+                input.readFully(data, 0, length);
 
                 output.writeByte(0x09);
                 output.writeByte(PingUtil.PING_PACKET);
@@ -91,8 +164,38 @@ public class Ping {
                 Preconditions.checkState(id != -1, "Server prematurely ended stream.");
                 Preconditions.checkState(id == PingUtil.PING_PACKET, "Server returned invalid packet.");
             }
+            complete = true;
+        } catch (IOException e) {
+            if (token != null && token.isCancelled() && !(e instanceof PingCancelledException))
+                throw new PingCancelledException(e);
+            if (exchange != null && exchange.isExpired())
+                throw timedOut("Exchange deadline of " + options.getDeadline() + "ms exceeded", e);
+            if (phase != null && phase.isExpired())
+                throw timedOut(phaseName + " timed out after " + options.getTimeout() + "ms", e);
+            throw e;
+        } finally {
+            if (!complete) BUFFERS.release(data);
+            if (token != null) token.unregister(socket);
+            if (exchange != null) exchange.cancel();
+            if (phase != null) phase.cancel();
         }
 
+        return new RawStatus(options, data, length, ping, BUFFERS);
+    }
+
+    /**
+     * Performs the CPU part of a ping: parses the raw status response and maps it to a {@link ServerPing}.
+     * The status is not closed by this method.
+     *
+     * @param status the raw status response, as returned by {@link #exchange(PingOptions, CancellationToken)}
+     * @return the decoded ping response
+     * @throws com.google.gson.JsonParseException if the status response is not valid JSON
+     * @throws IllegalStateException              if the status response is not a JSON object
+     */
+    public static ServerPing decode(RawStatus status) {
+        var options = status.getOptions();
+        var json = new String(status.getData(), 0, status.getLength(), StandardCharsets.UTF_8);
+
         var jsonObject = JsonParser.parseString(json).getAsJsonObject();
         var descriptionJsonElement = jsonObject.get("description");
 
@@ -115,14 +218,90 @@ public class Ping {
 
         }
 
+        var faviconHash = storeFavicon(jsonObject, options.getFaviconStore());
         var output = GSON.fromJson(jsonObject, ServerPing.class);
 
-        output.setPing(ping);
+        output.setFaviconHash(faviconHash);
+        output.setPing(status.getPing());
         output.setAddress(options.getAddress());
 
         return output;
     }
 
+    /**
+     * Applies the socket options of the given {@link PingOptions} and binds the socket
+     * to the next source address of the pool, if one is configured.
+     * Source ports that are still in use are skipped, up to a few attempts.
+     *
+     * @param socket  the unconnected socket
+     * @param options the options to apply
+     * @throws IOException if a socket option cannot be set or no source address could be bound
+     */
+    private static void configure(Socket socket, PingOptions options) throws IOException {
+        if (options.isTcpNoDelay()) socket.setTcpNoDelay(true);
+        if (options.getReceiveBufferSize() > 0) socket.setReceiveBufferSize(options.getReceiveBufferSize());
+        if (options.isAbortiveClose()) socket.setSoLinger(true, 0);
+
+        var sourceAddresses = options.getSourceAddresses();
+        if (sourceAddresses == null) return;
+        socket.setReuseAddress(true);
+        for (var attempt = 1; ; attempt++) {
+            var local = sourceAddresses.next(options.getAddress());
+            if (local == null) return;
+            try {
+                socket.bind(local);
+                return;
+            } catch (BindException e) {
+                if (attempt == BIND_ATTEMPTS) throw e;
+            }
+        }
+    }
+
+    /**
+     * Moves the favicon of the status response into the given store, so it is not deserialized.
+     * A favicon that is malformed or cannot be written is kept inline instead.
+     *
+     * @param status the status response
+     * @param store  the store to move the favicon to, or null to keep it inline
+     * @return the hash of the stored favicon, or null if it was not stored
+     */
+    private static @Nullable String storeFavicon(JsonObject status, @Nullable FaviconStore store) {
+        if (store == null) return null;
+        var favicon = status.get("favicon");
+        if (favicon == null || !favicon.isJsonPrimitive()) return null;
+        try {
+            var hash = store.store(favicon.getAsString());
+            status.remove("favicon");
+            return hash;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Schedules the given socket to be closed once the timeout elapsed.
+     * Closing the socket aborts any connect or read that is currently blocking on it.
+     *
+     * @param socket  the socket to close on expiration
+     * @param timeout the timeout in milliseconds, 0 or less for none
+     * @return the scheduled timeout, or null if no timeout applies
+     */
+    private static HashedWheelTimer.@Nullable Timeout schedule(Socket socket, int timeout) {
+        if (timeout <= 0) return null;
+        return TIMER.schedule(() -> {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static SocketTimeoutException timedOut(String message, IOException cause) {
+        var exception = new SocketTimeoutException(message);
+        exception.initCause(cause);
+        return exception;
+    }
+
     /**
      * Resolves the given hostname to an InetSocketAddress using DNS SRV records.
      * If resolution fails, returns an empty Optional.
@@ -0,0 +1,27 @@
+package net.thenextlvl.resolver;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Signals that a ping was aborted because its {@link CancellationToken} was cancelled.
+ * <p>
+ * Timeouts are reported as {@link java.net.SocketTimeoutException}, which is an {@link InterruptedIOException}
+ * as well, so callers telling cancellations apart from timeouts have to check for this type.
+ *
+ * @see Ping#ping(PingOptions, CancellationToken)
+ */
+@NullMarked
+public final class PingCancelledException extends InterruptedIOException {
+    /**
+     * Constructs a new exception caused by the given exception.
+     *
+     * @param cause the exception the cancellation surfaced as, or null if the ping was not started
+     */
+    public PingCancelledException(@Nullable Throwable cause) {
+        super("Ping cancelled");
+        if (cause != null) initCause(cause);
+    }
+}
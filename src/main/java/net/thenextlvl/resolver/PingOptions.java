@@ -1,7 +1,9 @@
 package net.thenextlvl.resolver;
 
 import com.velocitypowered.api.network.ProtocolVersion;
+import net.thenextlvl.resolver.store.FaviconStore;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.net.InetSocketAddress;
 
@@ -15,19 +17,41 @@ import java.net.InetSocketAddress;
  * <p>
  * Fields:<br>
  * - address: The {@link InetSocketAddress} of the server to ping.<br>
- * - timeout: The timeout duration in milliseconds for the ping operation. Defaults to 5000 ms.<br>
- * - protocolVersion: The protocol version to use when pinging the server. Defaults to {@link ProtocolVersion#MAXIMUM_VERSION}.
+ * - timeout: The time in milliseconds the connect phase and, separately, the whole read phase may take, or 0 for none. Defaults to 5000 ms.
+ * It is no per-read inactivity timeout: a server trickling its response slower than this fails even while it keeps sending.<br>
+ * - deadline: The overall duration in milliseconds the whole exchange may take, or 0 for none. Defaults to 0.<br>
+ * - protocolVersion: The protocol version to use when pinging the server. Defaults to {@link ProtocolVersion#MAXIMUM_VERSION}.<br>
+ * - faviconStore: The store favicons are moved to, leaving only their hash in the {@link ServerPing}, or null to keep them inline. Defaults to null.<br>
+ * - sourceAddresses: The pool of local addresses the socket is bound to, or null to let the system choose. Defaults to null.<br>
+ * - abortiveClose: Whether the socket is closed with SO_LINGER set to 0, resetting the connection instead of leaving it in TIME_WAIT. Defaults to false.<br>
+ * - tcpNoDelay: Whether Nagle's algorithm is disabled (TCP_NODELAY). Defaults to false.<br>
+ * - receiveBufferSize: The size of the socket receive buffer (SO_RCVBUF) in bytes, or 0 for the system default. Defaults to 0.<br>
+ * - maxResponseSize: The largest status response in bytes that is accepted; larger responses fail the ping. Defaults to {@link PingUtil#MAX_STATUS_LENGTH}.
  */
 @NullMarked
 public class PingOptions {
     private final InetSocketAddress address;
     private final ProtocolVersion protocolVersion;
     private final int timeout;
+    private final int deadline;
+    private final @Nullable FaviconStore faviconStore;
+    private final @Nullable SourceAddressPool sourceAddresses;
+    private final boolean abortiveClose;
+    private final boolean tcpNoDelay;
+    private final int receiveBufferSize;
+    private final int maxResponseSize;
 
-    private PingOptions(InetSocketAddress address, ProtocolVersion protocolVersion, int timeout) {
-        this.address = address;
-        this.protocolVersion = protocolVersion;
-        this.timeout = timeout;
+    private PingOptions(Builder builder) {
+        this.address = builder.address;
+        this.protocolVersion = builder.protocolVersion;
+        this.timeout = builder.timeout;
+        this.deadline = builder.deadline;
+        this.faviconStore = builder.faviconStore;
+        this.sourceAddresses = builder.sourceAddresses;
+        this.abortiveClose = builder.abortiveClose;
+        this.tcpNoDelay = builder.tcpNoDelay;
+        this.receiveBufferSize = builder.receiveBufferSize;
+        this.maxResponseSize = builder.maxResponseSize;
     }
 
     public InetSocketAddress getAddress() {
@@ -42,10 +66,45 @@ public class PingOptions {
         return timeout;
     }
 
+    public int getDeadline() {
+        return deadline;
+    }
+
+    public @Nullable FaviconStore getFaviconStore() {
+        return faviconStore;
+    }
+
+    public @Nullable SourceAddressPool getSourceAddresses() {
+        return sourceAddresses;
+    }
+
+    public boolean isAbortiveClose() {
+        return abortiveClose;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public int getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
     public Builder toBuilder() {
         return new Builder(address)
                 .protocolVersion(protocolVersion)
-                .timeout(timeout);
+                .timeout(timeout)
+                .deadline(deadline)
+                .faviconStore(faviconStore)
+                .sourceAddresses(sourceAddresses)
+                .abortiveClose(abortiveClose)
+                .tcpNoDelay(tcpNoDelay)
+                .receiveBufferSize(receiveBufferSize)
+                .maxResponseSize(maxResponseSize);
     }
 
     public static Builder builder(InetSocketAddress address) {
@@ -56,6 +115,13 @@ public class PingOptions {
         private InetSocketAddress address;
         private ProtocolVersion protocolVersion = ProtocolVersion.MAXIMUM_VERSION;
         private int timeout = 5000;
+        private int deadline = 0;
+        private @Nullable FaviconStore faviconStore = null;
+        private @Nullable SourceAddressPool sourceAddresses = null;
+        private boolean abortiveClose = false;
+        private boolean tcpNoDelay = false;
+        private int receiveBufferSize = 0;
+        private int maxResponseSize = PingUtil.MAX_STATUS_LENGTH;
 
         private Builder(InetSocketAddress address) {
             this.address = address;
@@ -76,8 +142,43 @@ public class PingOptions {
             return this;
         }
 
+        public Builder deadline(int deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public Builder faviconStore(@Nullable FaviconStore faviconStore) {
+            this.faviconStore = faviconStore;
+            return this;
+        }
+
+        public Builder sourceAddresses(@Nullable SourceAddressPool sourceAddresses) {
+            this.sourceAddresses = sourceAddresses;
+            return this;
+        }
+
+        public Builder abortiveClose(boolean abortiveClose) {
+            this.abortiveClose = abortiveClose;
+            return this;
+        }
+
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public Builder maxResponseSize(int maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
         public PingOptions build() {
-            return new PingOptions(address, protocolVersion, timeout);
+            return new PingOptions(this);
         }
     }
 }
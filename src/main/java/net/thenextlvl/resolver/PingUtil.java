@@ -13,6 +13,12 @@ public class PingUtil {
     public static final byte PING_PACKET = 0x01;
     public static final int STATUS_HANDSHAKE = 1;
 
+    /**
+     * The largest status response in bytes vanilla servers send:
+     * a string of at most 32767 characters, each encoded with up to three bytes.
+     */
+    public static final int MAX_STATUS_LENGTH = 32767 * 3;
+
     /**
      * Reads an integer value from a DataInputStream using Variable-Length Quantity (VarInt) encoding.
      *
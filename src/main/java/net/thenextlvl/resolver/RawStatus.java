@@ -0,0 +1,76 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.BufferPool;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The raw status response of a server, as read by {@link Ping#exchange(PingOptions, CancellationToken)}
+ * and not decoded yet.
+ * <p>
+ * The response is held in a pooled buffer that is handed back to its pool when the status is closed,
+ * after which the data must no longer be accessed. The status may be closed on any thread, and closing
+ * it more than once has no effect.
+ */
+@NullMarked
+public final class RawStatus implements AutoCloseable {
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final PingOptions options;
+    private final byte[] data;
+    private final int length;
+    private final long ping;
+    private final @Nullable BufferPool pool;
+
+    RawStatus(PingOptions options, byte[] data, int length, long ping, @Nullable BufferPool pool) {
+        this.options = options;
+        this.data = data;
+        this.length = length;
+        this.ping = ping;
+        this.pool = pool;
+    }
+
+    /**
+     * Wraps a status response that was read elsewhere, for example received from another process,
+     * so it can be decoded with {@link Ping#decode(RawStatus)}. The data is not pooled.
+     *
+     * @param options the options the server was pinged with
+     * @param data    the UTF-8 encoded status response
+     * @param ping    the latency of the server in milliseconds
+     * @return the raw status
+     */
+    public static RawStatus of(PingOptions options, byte[] data, long ping) {
+        return new RawStatus(options, data, data.length, ping, null);
+    }
+
+    public PingOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the buffer holding the UTF-8 encoded status response.
+     * Only the first {@link #getLength()} bytes belong to the response.
+     *
+     * @return the response buffer
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getPing() {
+        return ping;
+    }
+
+    /**
+     * Hands the buffer back to its pool.
+     */
+    @Override
+    public void close() {
+        if (pool != null && closed.compareAndSet(false, true)) pool.release(data);
+    }
+}
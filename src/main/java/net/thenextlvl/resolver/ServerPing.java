@@ -30,6 +30,8 @@ public class ServerPing {
     private final @SerializedName("favicon") String favicon;
     private final @SerializedName("modinfo") ModInfo modInfo;
 
+    private transient @Nullable String faviconHash; // set by the favicon store, never by the server
+    private transient @Nullable Asn asn; // never read from the untrusted status response
     private InetSocketAddress address;
     private long ping;
 
@@ -55,14 +57,43 @@ public class ServerPing {
         return version;
     }
 
+    /**
+     * Returns the favicon of the server as a base64 encoded PNG data URI.
+     * <p>
+     * If the server was pinged with a {@link net.thenextlvl.resolver.store.FaviconStore}, the favicon was moved
+     * to the store and this method returns null; use {@link #getFaviconHash()} to load it from the store instead.
+     *
+     * @return the favicon, or null if the server has none or it was moved to a store
+     */
     public @Nullable String getFavicon() {
         return favicon;
     }
 
+    /**
+     * Returns the hash of the favicon in the {@link net.thenextlvl.resolver.store.FaviconStore}
+     * the server was pinged with.
+     *
+     * @return the SHA-256 hash of the favicon, or null if the favicon was not stored
+     */
+    public @Nullable String getFaviconHash() {
+        return faviconHash;
+    }
+
     public @Nullable ModInfo getModInfo() {
         return modInfo;
     }
 
+    /**
+     * Returns the autonomous system the address of the server belongs to.
+     * <p>
+     * Responses are only tagged when they pass through an {@link AsnTable}.
+     *
+     * @return the autonomous system, or null if the response was not tagged or the address is not in the table
+     */
+    public @Nullable Asn getAsn() {
+        return asn;
+    }
+
     public InetSocketAddress getAddress() {
         return address;
     }
@@ -71,6 +102,28 @@ public class ServerPing {
         return ping;
     }
 
+    /**
+     * Creates a copy of this ping response that reports the given address instead.
+     * The response data itself is shared with this instance.
+     *
+     * @param address the address of the copy
+     * @return a new ServerPing with the given address
+     */
+    public ServerPing withAddress(InetSocketAddress address) {
+        var copy = new ServerPing(description, players, version, favicon, modInfo, address, ping);
+        copy.faviconHash = faviconHash;
+        copy.asn = asn;
+        return copy;
+    }
+
+    void setFaviconHash(@Nullable String faviconHash) {
+        this.faviconHash = faviconHash;
+    }
+
+    void setAsn(@Nullable Asn asn) {
+        this.asn = asn;
+    }
+
     void setAddress(InetSocketAddress address) {
         this.address = address;
     }
@@ -86,7 +139,9 @@ public class ServerPing {
                ", players=" + players +
                ", version=" + version +
                ", favicon='" + favicon + '\'' +
+               ", faviconHash='" + faviconHash + '\'' +
                ", modInfo=" + modInfo +
+               ", asn=" + asn +
                ", address=" + address +
                ", ping=" + ping +
                '}';
@@ -110,4 +165,14 @@ public class ServerPing {
             @SerializedName("text") String text
     ) {
     }
+
+    /**
+     * The Asn record identifies the autonomous system, and with it the network operator or
+     * hosting provider, that announces the address of a server.
+     *
+     * @param number       the autonomous system number
+     * @param organization the name of the organization operating the autonomous system
+     */
+    public record Asn(int number, String organization) {
+    }
 }
@@ -0,0 +1,87 @@
+package net.thenextlvl.resolver;
+
+import com.google.common.base.Preconditions;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of local source addresses and ports that pings are bound to in rotation.
+ * <p>
+ * A single source address runs out of ephemeral ports at high probe rates, since every closed
+ * connection keeps its port in TIME_WAIT for a while. Spreading pings across several local addresses,
+ * and optionally across an explicit port range, multiplies the number of usable source tuples.
+ * <p>
+ * Addresses are handed out round-robin per address family, so a ping is always bound to an address
+ * of the same family as its target. The pool is thread-safe and lock-free.
+ */
+@NullMarked
+public final class SourceAddressPool {
+    private final Family ipv4;
+    private final Family ipv6;
+    private final int minPort;
+    private final int ports;
+
+    private SourceAddressPool(List<InetAddress> addresses, int minPort, int maxPort) {
+        Preconditions.checkArgument(!addresses.isEmpty(), "addresses must not be empty");
+        Preconditions.checkArgument(minPort >= 0 && maxPort <= 65535 && minPort <= maxPort, "Bad port range: %s-%s", minPort, maxPort);
+        this.ipv4 = new Family(addresses.stream().filter(Inet4Address.class::isInstance).toArray(InetAddress[]::new));
+        this.ipv6 = new Family(addresses.stream().filter(address -> !(address instanceof Inet4Address)).toArray(InetAddress[]::new));
+        this.minPort = minPort;
+        this.ports = maxPort - minPort + 1;
+    }
+
+    /**
+     * Creates a pool binding to the given addresses, letting the operating system pick the port.
+     *
+     * @param addresses the local addresses to rotate through
+     * @return the new pool
+     */
+    public static SourceAddressPool of(List<InetAddress> addresses) {
+        return new SourceAddressPool(addresses, 0, 0);
+    }
+
+    /**
+     * Creates a pool binding to every port of the given range on each of the given addresses.
+     *
+     * @param addresses the local addresses to rotate through
+     * @param minPort   the lowest local port, inclusive
+     * @param maxPort   the highest local port, inclusive
+     * @return the new pool
+     */
+    public static SourceAddressPool of(List<InetAddress> addresses, int minPort, int maxPort) {
+        Preconditions.checkArgument(minPort > 0, "minPort must be positive");
+        return new SourceAddressPool(addresses, minPort, maxPort);
+    }
+
+    /**
+     * Returns the next local address to bind a connection to the given target to.
+     *
+     * @param target the address that is going to be connected to
+     * @return the local address to bind to, or null if the target is unresolved
+     * or the pool has no address of the target's family
+     */
+    public @Nullable InetSocketAddress next(InetSocketAddress target) {
+        if (target.isUnresolved()) return null;
+        var family = target.getAddress() instanceof Inet4Address ? ipv4 : ipv6;
+        if (family.addresses.length == 0) return null;
+        var index = family.counter.getAndIncrement() & Long.MAX_VALUE;
+        var address = family.addresses[(int) (index % family.addresses.length)];
+        var port = ports == 1 ? minPort : minPort + (int) (index / family.addresses.length % ports);
+        return new InetSocketAddress(address, port);
+    }
+
+    private static final class Family {
+        private final AtomicLong counter = new AtomicLong();
+        private final InetAddress[] addresses;
+
+        private Family(InetAddress[] addresses) {
+            this.addresses = addresses;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.google.gson.JsonParseException;
 import org.jspecify.annotations.NullMarked;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -15,7 +16,8 @@ import java.util.UUID;
  * <p>
  * This class handles the deserialization of JSON elements that represent UUIDs.
  * It supports UUIDs in both standard 36-character format and compact 32-character format.
- * When a UUID is in the compact format, it inserts hyphens at the appropriate positions.
+ * Both formats are decoded directly from their hex digits into the two longs of the UUID,
+ * without any intermediate strings.
  * <p>
  * Constructor:
  * - UUIDAdapter(): Constructs a new UUIDAdapter instance.
@@ -24,21 +26,84 @@ import java.util.UUID;
  * - UUID deserialize(JsonElement json, Type typeOf, JsonDeserializationContext context):
  * Deserialize a JSON element into a UUID object.
  * Throws JsonParseException if the JSON format is invalid.
+ * - long parseMostSignificantBits(CharSequence uuid), long parseLeastSignificantBits(CharSequence uuid):
+ * Decode either half of a UUID without creating a UUID object.
  */
 @NullMarked
 public class UUIDAdapter implements JsonDeserializer<UUID> {
+    private static final byte[] HEX = new byte[128];
+
+    static {
+        Arrays.fill(HEX, (byte) -1);
+        for (var i = 0; i < 10; i++) HEX['0' + i] = (byte) i;
+        for (var i = 0; i < 6; i++) {
+            HEX['a' + i] = (byte) (10 + i);
+            HEX['A' + i] = (byte) (10 + i);
+        }
+    }
+
     @Override
     public UUID deserialize(JsonElement json, Type typeOf, JsonDeserializationContext context) throws JsonParseException {
         var uuid = json.getAsString();
-        if (uuid.length() == 36) return UUID.fromString(uuid);
-        Preconditions.checkArgument(uuid.length() == 32, "Invalid UUID");
-        var parts = new String[]{
-                uuid.substring(0, 8),
-                uuid.substring(8, 12),
-                uuid.substring(12, 16),
-                uuid.substring(16, 20),
-                uuid.substring(20)
-        };
-        return UUID.fromString(String.join("-", parts));
+        return new UUID(parseMostSignificantBits(uuid), parseLeastSignificantBits(uuid));
+    }
+
+    /**
+     * Decodes the most significant 64 bits of a UUID in standard 36-character or compact 32-character format,
+     * straight from its hex digits and without allocating anything.
+     *
+     * @param uuid the UUID string
+     * @return the most significant bits
+     * @throws IllegalArgumentException if the string is not a valid UUID
+     */
+    public static long parseMostSignificantBits(CharSequence uuid) {
+        var dash = checkFormat(uuid) ? 1 : 0;
+        return bits(hex4(uuid, 0), hex4(uuid, 4), hex4(uuid, 8 + dash), hex4(uuid, 12 + 2 * dash));
+    }
+
+    /**
+     * Decodes the least significant 64 bits of a UUID in standard 36-character or compact 32-character format,
+     * straight from its hex digits and without allocating anything.
+     *
+     * @param uuid the UUID string
+     * @return the least significant bits
+     * @throws IllegalArgumentException if the string is not a valid UUID
+     */
+    public static long parseLeastSignificantBits(CharSequence uuid) {
+        var dash = checkFormat(uuid) ? 1 : 0;
+        return bits(hex4(uuid, 16 + 3 * dash), hex4(uuid, 20 + 4 * dash), hex4(uuid, 24 + 4 * dash), hex4(uuid, 28 + 4 * dash));
+    }
+
+    /**
+     * Checks the length and hyphens of the given UUID string.
+     *
+     * @return true if the UUID is in the standard format, false if it is in the compact format
+     */
+    private static boolean checkFormat(CharSequence uuid) {
+        if (uuid.length() == 32) return false;
+        Preconditions.checkArgument(uuid.length() == 36, "Invalid UUID");
+        Preconditions.checkArgument(uuid.charAt(8) == '-' && uuid.charAt(13) == '-'
+                                    && uuid.charAt(18) == '-' && uuid.charAt(23) == '-', "Invalid UUID");
+        return true;
+    }
+
+    /**
+     * Joins four groups of four hex digits, any negative group is an invalid digit.
+     */
+    private static long bits(long a, long b, long c, long d) {
+        Preconditions.checkArgument((a | b | c | d) >= 0, "Invalid UUID");
+        return a << 48 | b << 32 | c << 16 | d;
+    }
+
+    /**
+     * Decodes four hex digits, returning a negative value if any of them is invalid.
+     */
+    private static int hex4(CharSequence uuid, int index) {
+        var a = uuid.charAt(index);
+        var b = uuid.charAt(index + 1);
+        var c = uuid.charAt(index + 2);
+        var d = uuid.charAt(index + 3);
+        if ((a | b | c | d) >= HEX.length) return -1;
+        return HEX[a] << 12 | HEX[b] << 8 | HEX[c] << 4 | HEX[d];
     }
 }
@@ -0,0 +1,363 @@
+package net.thenextlvl.resolver.index;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.thenextlvl.resolver.RawStatus;
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.adapter.UUIDAdapter;
+import net.thenextlvl.resolver.util.OffHeapLongPairSet;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An off-heap index of the servers every player was seen on, filled from the player samples of status responses.
+ * <p>
+ * Players are keyed by the two longs of their UUID in a fixed-size, linearly probed table of direct buffers,
+ * so the index holds millions of players without boxing a single {@link java.util.UUID}. Every 64-byte slot
+ * holds the UUID and the {@value #MAX_SERVERS} servers the player was seen on most recently, each as an int
+ * server id and the time it was last seen there, packed into one long. Once all of them are taken, a newer
+ * sighting replaces the oldest one.
+ * <p>
+ * Samples can be recorded straight from a {@link RawStatus}, which streams over the JSON and decodes the player ids
+ * directly into the two longs of their UUID, without mapping the response to a {@link ServerPing} first.
+ * <p>
+ * Slots are claimed with a compare-and-set on their state and sightings are updated with a compare-and-set
+ * on their packed entry, so any number of scanner threads can record sightings concurrently without locking.
+ * Under contention, a server may briefly occupy two entries of a player; lookups merge them.
+ * <p>
+ * Server ids are assigned by the caller, for example the row of a {@link ScanIndex}.
+ * The capacity is fixed when the index is created and should be about twice the number of expected players.
+ */
+@NullMarked
+public final class PlayerIndex {
+    /**
+     * The number of servers kept per player.
+     */
+    public static final int MAX_SERVERS = 5;
+
+    private static final int SLOT_BYTES = 64;
+    private static final int CHUNK_SHIFT = 24; // 16M slots, 1 GiB per chunk
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+
+    private static final int STATE = 0;
+    private static final int HIGH = 8;
+    private static final int LOW = 16;
+    private static final int ENTRIES = 24;
+
+    private static final long EMPTY = 0;
+    private static final long CLAIMING = 1;
+    private static final long PUBLISHED = 2;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final AtomicLong size = new AtomicLong();
+    private final ByteBuffer[] chunks;
+    private final long capacity;
+    private final long mask;
+
+    /**
+     * Constructs a new index.
+     *
+     * @param capacity the number of slots, rounded up to the next power of two
+     */
+    public PlayerIndex(long capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        var size = Long.highestOneBit(Math.max(16, capacity));
+        if (size < capacity) size <<= 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.chunks = new ByteBuffer[(int) Math.max(1, size >>> CHUNK_SHIFT)];
+        for (var i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect((int) Math.min(size, CHUNK_SLOTS) * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Records every player in the sample of the given raw status response as seen on the given server.
+     * <p>
+     * Only the ids of the sample are read, the rest of the response is skipped. Ids that are not
+     * a valid UUID are ignored.
+     *
+     * @param status   the raw status response
+     * @param serverId the id of the server
+     * @param lastSeen the time the players were seen, in seconds since the epoch
+     * @return the number of players recorded
+     * @throws JsonParseException    if the response is not valid JSON
+     * @throws IllegalStateException if the index is full
+     */
+    public int record(RawStatus status, int serverId, long lastSeen) {
+        var input = new ByteArrayInputStream(status.getData(), 0, status.getLength());
+        try (var reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            var recorded = 0;
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) throw new JsonParseException("Status response is not an object");
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("players") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals("sample") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (recordSample(reader, serverId, lastSeen)) recorded++;
+                    }
+                    reader.endArray();
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+            return recorded;
+        } catch (IOException e) {
+            throw new JsonParseException("Malformed status response", e);
+        }
+    }
+
+    /**
+     * Records the player of a single sample entry, if it carries a valid id.
+     */
+    private boolean recordSample(JsonReader reader, int serverId, long lastSeen) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return false;
+        }
+        String id = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("id") && reader.peek() == JsonToken.STRING) id = reader.nextString();
+            else reader.skipValue();
+        }
+        reader.endObject();
+        if (id == null) return false;
+        long high, low;
+        try {
+            high = UUIDAdapter.parseMostSignificantBits(id);
+            low = UUIDAdapter.parseLeastSignificantBits(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        record(high, low, serverId, lastSeen);
+        return true;
+    }
+
+    /**
+     * Records every player in the sample of the given status response as seen on the given server.
+     *
+     * @param ping     the status response
+     * @param serverId the id of the server
+     * @param lastSeen the time the players were seen, in seconds since the epoch
+     * @return the number of players recorded
+     * @throws IllegalStateException if the index is full
+     */
+    public int record(ServerPing ping, int serverId, long lastSeen) {
+        var players = ping.getPlayers();
+        if (players == null || players.getSample() == null) return 0;
+        var recorded = 0;
+        for (var player : players.getSample()) {
+            var id = player.getId();
+            if (id == null) continue;
+            record(id.getMostSignificantBits(), id.getLeastSignificantBits(), serverId, lastSeen);
+            recorded++;
+        }
+        return recorded;
+    }
+
+    /**
+     * Records that the player with the given UUID was seen on the given server.
+     * The time a player was last seen on a server only ever grows.
+     *
+     * @param high     the most significant bits of the UUID of the player
+     * @param low      the least significant bits of the UUID of the player
+     * @param serverId the id of the server
+     * @param lastSeen the time the player was seen, in seconds since the epoch
+     * @throws IllegalStateException if the index is full
+     */
+    public void record(long high, long low, int serverId, long lastSeen) {
+        Preconditions.checkArgument(lastSeen > 0 && lastSeen <= 0xFFFFFFFFL, "lastSeen out of range: %s", lastSeen);
+        var slot = claim(high, low);
+        var chunk = chunk(slot);
+        var offset = offset(slot);
+        var packed = (long) serverId << 32 | lastSeen;
+
+        retry:
+        for (; ; ) {
+            var oldestIndex = -1;
+            var oldest = 0L;
+            for (var i = 0; i < MAX_SERVERS; i++) {
+                var position = offset + ENTRIES + i * Long.BYTES;
+                var entry = (long) LONG.getVolatile(chunk, position);
+                // entries are filled in order and never cleared, so the first empty one ends the list
+                if (entry == 0) {
+                    if (LONG.compareAndSet(chunk, position, 0L, packed)) return;
+                    continue retry;
+                }
+                if ((int) (entry >>> 32) == serverId) {
+                    if ((entry & 0xFFFFFFFFL) >= lastSeen || LONG.compareAndSet(chunk, position, entry, packed)) return;
+                    continue retry;
+                }
+                if (oldestIndex < 0 || (entry & 0xFFFFFFFFL) < (oldest & 0xFFFFFFFFL)) {
+                    oldestIndex = i;
+                    oldest = entry;
+                }
+            }
+            if ((oldest & 0xFFFFFFFFL) >= lastSeen) return;
+            var position = offset + ENTRIES + oldestIndex * Long.BYTES;
+            if (LONG.compareAndSet(chunk, position, oldest, packed)) return;
+        }
+    }
+
+    /**
+     * Returns the servers the player with the given UUID was seen on most recently.
+     *
+     * @param high the most significant bits of the UUID of the player
+     * @param low  the least significant bits of the UUID of the player
+     * @return the sightings of the player, most recent first, empty if the player was never seen
+     */
+    public List<Sighting> get(long high, long low) {
+        var sightings = new ArrayList<Sighting>(MAX_SERVERS);
+        for (long slot = OffHeapLongPairSet.hash(high, low) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            var state = await(chunk, offset);
+            if (state == EMPTY) break;
+            if ((long) LONG.get(chunk, offset + HIGH) != high || (long) LONG.get(chunk, offset + LOW) != low) continue;
+            forEachEntry(chunk, offset, (serverId, lastSeen) -> merge(sightings, serverId, lastSeen));
+            break;
+        }
+        sightings.sort(Comparator.comparingLong(Sighting::lastSeen).reversed());
+        return sightings;
+    }
+
+    /**
+     * Calls the given action for every sighting of every player, in no particular order.
+     *
+     * @param action the action receiving every sighting
+     */
+    public void forEach(SightingConsumer action) {
+        for (var slot = 0L; slot < capacity; slot++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            if ((long) LONG.getVolatile(chunk, offset + STATE) != PUBLISHED) continue;
+            var high = (long) LONG.get(chunk, offset + HIGH);
+            var low = (long) LONG.get(chunk, offset + LOW);
+            var sightings = new ArrayList<Sighting>(MAX_SERVERS);
+            forEachEntry(chunk, offset, (serverId, lastSeen) -> merge(sightings, serverId, lastSeen));
+            sightings.forEach(sighting -> action.accept(high, low, sighting.serverId(), sighting.lastSeen()));
+        }
+    }
+
+    /**
+     * Returns the number of players in the index.
+     *
+     * @return the number of claimed slots
+     */
+    public long size() {
+        return size.get();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    private long claim(long high, long low) {
+        for (long slot = OffHeapLongPairSet.hash(high, low) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            var state = (long) LONG.getVolatile(chunk, offset + STATE);
+            if (state == EMPTY && (long) LONG.compareAndExchange(chunk, offset + STATE, EMPTY, CLAIMING) == EMPTY) {
+                LONG.set(chunk, offset + HIGH, high);
+                LONG.set(chunk, offset + LOW, low);
+                LONG.setVolatile(chunk, offset + STATE, PUBLISHED);
+                size.incrementAndGet();
+                return slot;
+            }
+            await(chunk, offset);
+            if ((long) LONG.get(chunk, offset + HIGH) == high && (long) LONG.get(chunk, offset + LOW) == low) return slot;
+        }
+        throw new IllegalStateException("Player index is full");
+    }
+
+    /**
+     * Waits until the UUID of a slot that is being claimed by another thread is written.
+     *
+     * @return the state of the slot, either empty or published
+     */
+    private static long await(ByteBuffer chunk, int offset) {
+        long state;
+        while ((state = (long) LONG.getVolatile(chunk, offset + STATE)) == CLAIMING) Thread.onSpinWait();
+        return state;
+    }
+
+    private static void forEachEntry(ByteBuffer chunk, int offset, EntryConsumer action) {
+        for (var i = 0; i < MAX_SERVERS; i++) {
+            var entry = (long) LONG.getVolatile(chunk, offset + ENTRIES + i * Long.BYTES);
+            if (entry == 0) return;
+            action.accept((int) (entry >>> 32), entry & 0xFFFFFFFFL);
+        }
+    }
+
+    private static void merge(List<Sighting> sightings, int serverId, long lastSeen) {
+        for (var i = 0; i < sightings.size(); i++) {
+            if (sightings.get(i).serverId() != serverId) continue;
+            if (sightings.get(i).lastSeen() < lastSeen) sightings.set(i, new Sighting(serverId, lastSeen));
+            return;
+        }
+        sightings.add(new Sighting(serverId, lastSeen));
+    }
+
+    private ByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)];
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+    }
+
+    /**
+     * A server a player was seen on.
+     *
+     * @param serverId the id of the server
+     * @param lastSeen the time the player was last seen on the server, in seconds since the epoch
+     */
+    public record Sighting(int serverId, long lastSeen) {
+    }
+
+    /**
+     * Receives the sightings of {@link #forEach(SightingConsumer)}.
+     */
+    @FunctionalInterface
+    public interface SightingConsumer {
+        /**
+         * Receives a single sighting.
+         *
+         * @param high     the most significant bits of the UUID of the player
+         * @param low      the least significant bits of the UUID of the player
+         * @param serverId the id of the server
+         * @param lastSeen the time the player was last seen on the server, in seconds since the epoch
+         */
+        void accept(long high, long low, int serverId, long lastSeen);
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(int serverId, long lastSeen);
+    }
+}
@@ -0,0 +1,112 @@
+package net.thenextlvl.resolver.index;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable bitmap of row numbers, as returned by a {@link ScanQuery}.
+ * Bit {@code n} of word {@code n / 64} is set if row {@code n} is part of the set.
+ */
+@NullMarked
+public final class RowSet {
+    private final long[] words;
+    private final int rows;
+
+    RowSet(long[] words, int rows) {
+        this.words = words;
+        this.rows = rows;
+    }
+
+    /**
+     * Determines whether the given row is part of this set.
+     *
+     * @param row the row number
+     * @return true if the row matched
+     */
+    public boolean contains(int row) {
+        return row >= 0 && row < rows && (words[row >>> 6] & 1L << row) != 0;
+    }
+
+    /**
+     * Returns the number of rows in this set.
+     *
+     * @return the number of matching rows
+     */
+    public int cardinality() {
+        var count = 0;
+        for (var word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (var word : words) if (word != 0) return false;
+        return true;
+    }
+
+    /**
+     * Creates the intersection of this set and the given set.
+     *
+     * @param other the set to intersect with
+     * @return a new set containing the rows present in both sets
+     */
+    public RowSet and(RowSet other) {
+        var words = Arrays.copyOf(this.words, Math.min(this.words.length, other.words.length));
+        for (var i = 0; i < words.length; i++) words[i] &= other.words[i];
+        return new RowSet(words, Math.min(rows, other.rows));
+    }
+
+    /**
+     * Creates the union of this set and the given set.
+     *
+     * @param other the set to unite with
+     * @return a new set containing the rows present in either set
+     */
+    public RowSet or(RowSet other) {
+        var larger = words.length >= other.words.length ? this : other;
+        var smaller = larger == this ? other : this;
+        var words = larger.words.clone();
+        for (var i = 0; i < smaller.words.length; i++) words[i] |= smaller.words[i];
+        return new RowSet(words, larger.rows);
+    }
+
+    /**
+     * Creates the complement of this set.
+     *
+     * @return a new set containing every row not present in this set
+     */
+    public RowSet not() {
+        var words = new long[this.words.length];
+        for (var i = 0; i < words.length; i++) words[i] = ~this.words[i];
+        if ((rows & 63) != 0) words[words.length - 1] &= (1L << rows) - 1;
+        return new RowSet(words, rows);
+    }
+
+    /**
+     * Calls the given action with every row number in ascending order.
+     *
+     * @param action the action receiving the row numbers
+     */
+    public void forEach(IntConsumer action) {
+        for (var i = 0; i < words.length; i++) {
+            var word = words[i];
+            while (word != 0) {
+                action.accept(i << 6 | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the row numbers in ascending order.
+     *
+     * @return a stream of the row numbers
+     */
+    public IntStream stream() {
+        var builder = IntStream.builder();
+        forEach(builder);
+        return builder.build();
+    }
+}
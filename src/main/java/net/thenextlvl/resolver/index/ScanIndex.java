@@ -0,0 +1,212 @@
+package net.thenextlvl.resolver.index;
+
+import net.thenextlvl.resolver.CompactServerPing;
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable columnar store of scan results that can be queried in place.
+ * <p>
+ * Every attribute of the results is kept in its own primitive array, indexed by row number,
+ * and all strings are encoded with a shared {@link StringDictionary}. The proxy flag and every brand
+ * additionally have a bitmap index, so filtering on them costs a single pass over a bitmap.
+ * Queries are created with {@link #query()} and scan the columns in parallel blocks.
+ *
+ * @see ScanQuery
+ */
+@NullMarked
+public final class ScanIndex {
+    final StringDictionary dictionary;
+    final int rows;
+
+    final long[] addressHigh;
+    final long[] addressLow;
+    final char[] port;
+    final int[] protocol;
+    final int[] onlinePlayers;
+    final int[] maxPlayers;
+    final int[] latency;
+    final int[] version;
+    final int[] brand;
+
+    final long[] proxies;
+    private final Map<Integer, long[]> brands = new HashMap<>();
+
+    private ScanIndex(Builder builder) {
+        this.dictionary = builder.dictionary;
+        this.rows = builder.rows;
+        this.addressHigh = Arrays.copyOf(builder.addressHigh, rows);
+        this.addressLow = Arrays.copyOf(builder.addressLow, rows);
+        this.port = Arrays.copyOf(builder.port, rows);
+        this.protocol = Arrays.copyOf(builder.protocol, rows);
+        this.onlinePlayers = Arrays.copyOf(builder.onlinePlayers, rows);
+        this.maxPlayers = Arrays.copyOf(builder.maxPlayers, rows);
+        this.latency = Arrays.copyOf(builder.latency, rows);
+        this.version = Arrays.copyOf(builder.version, rows);
+        this.brand = Arrays.copyOf(builder.brand, rows);
+        this.proxies = Arrays.copyOf(builder.proxies, words(rows));
+        for (var row = 0; row < rows; row++) {
+            brands.computeIfAbsent(brand[row], ignored -> new long[words(rows)])[row >>> 6] |= 1L << row;
+        }
+    }
+
+    /**
+     * Creates a new builder for an index using the given dictionary.
+     *
+     * @param dictionary the dictionary used to encode the strings of the results
+     * @return the new builder
+     */
+    public static Builder builder(StringDictionary dictionary) {
+        return new Builder(dictionary);
+    }
+
+    /**
+     * Creates a new query matching every row of this index until filters are added.
+     *
+     * @return the new query
+     */
+    public ScanQuery query() {
+        return new ScanQuery(this);
+    }
+
+    /**
+     * Returns the number of results in this index.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return rows;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public long getAddressHigh(int row) {
+        return addressHigh[row];
+    }
+
+    public long getAddressLow(int row) {
+        return addressLow[row];
+    }
+
+    public int getPort(int row) {
+        return port[row];
+    }
+
+    public int getProtocol(int row) {
+        return protocol[row];
+    }
+
+    public int getOnlinePlayers(int row) {
+        return onlinePlayers[row];
+    }
+
+    public int getMaxPlayers(int row) {
+        return maxPlayers[row];
+    }
+
+    public int getPing(int row) {
+        return latency[row];
+    }
+
+    public @Nullable String getVersionName(int row) {
+        return dictionary.decode(version[row]);
+    }
+
+    public @Nullable String getBrand(int row) {
+        return dictionary.decode(brand[row]);
+    }
+
+    public boolean isProxy(int row) {
+        return (proxies[row >>> 6] & 1L << row) != 0;
+    }
+
+    long @Nullable [] brandBitmap(int brand) {
+        return brands.get(brand);
+    }
+
+    static int words(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    /**
+     * A builder collecting results for a {@link ScanIndex}.
+     * Adding results is thread-safe, so the builder can be filled from scanner callbacks directly.
+     */
+    public static final class Builder {
+        private final StringDictionary dictionary;
+        private int rows;
+
+        private long[] addressHigh = new long[1024];
+        private long[] addressLow = new long[1024];
+        private char[] port = new char[1024];
+        private int[] protocol = new int[1024];
+        private int[] onlinePlayers = new int[1024];
+        private int[] maxPlayers = new int[1024];
+        private int[] latency = new int[1024];
+        private int[] version = new int[1024];
+        private int[] brand = new int[1024];
+        private long[] proxies = new long[16];
+
+        private Builder(StringDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Appends a result to the index.
+         * Strings of results using a different dictionary are re-encoded.
+         *
+         * @param ping the result to append
+         * @return this builder
+         */
+        public synchronized Builder add(CompactServerPing ping) {
+            if (rows == port.length) grow();
+            var row = rows++;
+            addressHigh[row] = ping.getAddressHigh();
+            addressLow[row] = ping.getAddressLow();
+            port[row] = (char) ping.getPort();
+            protocol[row] = ping.getProtocol();
+            onlinePlayers[row] = ping.getOnlinePlayers();
+            maxPlayers[row] = ping.getMaxPlayers();
+            latency[row] = ping.getPing();
+            if (ping.getDictionary() == dictionary) {
+                version[row] = ping.getVersionId();
+                brand[row] = ping.getBrandId();
+            } else {
+                version[row] = dictionary.encode(ping.getVersionName());
+                brand[row] = dictionary.encode(ping.getServerType().brand());
+            }
+            if (ping.isProxy()) proxies[row >>> 6] |= 1L << row;
+            return this;
+        }
+
+        /**
+         * Creates the index from the results added so far.
+         *
+         * @return the new index
+         */
+        public synchronized ScanIndex build() {
+            return new ScanIndex(this);
+        }
+
+        private void grow() {
+            var capacity = port.length * 2;
+            addressHigh = Arrays.copyOf(addressHigh, capacity);
+            addressLow = Arrays.copyOf(addressLow, capacity);
+            port = Arrays.copyOf(port, capacity);
+            protocol = Arrays.copyOf(protocol, capacity);
+            onlinePlayers = Arrays.copyOf(onlinePlayers, capacity);
+            maxPlayers = Arrays.copyOf(maxPlayers, capacity);
+            latency = Arrays.copyOf(latency, capacity);
+            version = Arrays.copyOf(version, capacity);
+            brand = Arrays.copyOf(brand, capacity);
+            proxies = Arrays.copyOf(proxies, words(capacity));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.thenextlvl.resolver.index;
+
+import com.google.common.base.Preconditions;
+import com.google.common.net.InetAddresses;
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.jspecify.annotations.NullMarked;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A conjunctive query over a {@link ScanIndex}.
+ * <p>
+ * Filters on the brand and the proxy flag are answered from bitmap indexes, all other filters scan
+ * their column. Rows are evaluated in blocks of 64, one bitmap word at a time, and blocks are
+ * processed in parallel. Once a word has no candidate rows left, the remaining filters skip it.
+ * <p>
+ * Example: {@code index.query().brand("Paper").protocol(767).onlinePlayersAtLeast(51).execute()}
+ */
+@NullMarked
+public final class ScanQuery {
+    private static final int WORDS_PER_TASK = 1024;
+
+    private final ScanIndex index;
+    private final List<WordFilter> filters = new ArrayList<>();
+    private final long[] candidates;
+
+    ScanQuery(ScanIndex index) {
+        this.index = index;
+        this.candidates = new long[ScanIndex.words(index.rows)];
+        Arrays.fill(candidates, -1L);
+        if ((index.rows & 63) != 0) candidates[candidates.length - 1] = (1L << index.rows) - 1;
+    }
+
+    /**
+     * Only matches servers of the given brand, as guessed by {@link net.thenextlvl.resolver.ServerType#guess}.
+     *
+     * @param brand the brand name, for example "Paper" or "Velocity"
+     * @return this query
+     */
+    public ScanQuery brand(String brand) {
+        var id = index.dictionary.lookup(brand);
+        // rows without a brand are stored as NULL, which must not match a brand that was never seen
+        var bitmap = id != StringDictionary.NULL ? index.brandBitmap(id) : null;
+        for (var i = 0; i < candidates.length; i++) candidates[i] &= bitmap != null ? bitmap[i] : 0;
+        return this;
+    }
+
+    /**
+     * Only matches proxies, or only servers that are no proxy.
+     *
+     * @param proxy whether to match proxies
+     * @return this query
+     */
+    public ScanQuery proxy(boolean proxy) {
+        for (var i = 0; i < candidates.length; i++) {
+            candidates[i] &= proxy ? index.proxies[i] : ~index.proxies[i];
+        }
+        return this;
+    }
+
+    /**
+     * Only matches servers reporting exactly the given version name.
+     *
+     * @param name the version name
+     * @return this query
+     */
+    public ScanQuery version(String name) {
+        var id = index.dictionary.lookup(name);
+        // rows without a version name are stored as NULL, which must not match a name that was never seen
+        if (id == StringDictionary.NULL) Arrays.fill(candidates, 0);
+        var version = index.version;
+        return filter(row -> version[row] == id);
+    }
+
+    /**
+     * Only matches servers reporting the given protocol version.
+     *
+     * @param protocol the protocol version
+     * @return this query
+     */
+    public ScanQuery protocol(int protocol) {
+        return protocolBetween(protocol, protocol);
+    }
+
+    /**
+     * Only matches servers reporting a protocol version within the given range.
+     *
+     * @param min the lowest protocol version, inclusive
+     * @param max the highest protocol version, inclusive
+     * @return this query
+     */
+    public ScanQuery protocolBetween(int min, int max) {
+        var column = index.protocol;
+        return filter(row -> column[row] >= min && column[row] <= max);
+    }
+
+    /**
+     * Only matches servers with at least the given number of players online.
+     *
+     * @param min the lowest player count, inclusive
+     * @return this query
+     */
+    public ScanQuery onlinePlayersAtLeast(int min) {
+        var column = index.onlinePlayers;
+        return filter(row -> column[row] >= min);
+    }
+
+    /**
+     * Only matches servers that responded within the given latency.
+     *
+     * @param max the highest latency in milliseconds, inclusive
+     * @return this query
+     */
+    public ScanQuery pingAtMost(int max) {
+        var column = index.latency;
+        return filter(row -> column[row] <= max);
+    }
+
+    /**
+     * Only matches servers on the given port.
+     *
+     * @param port the port
+     * @return this query
+     */
+    public ScanQuery port(int port) {
+        var column = index.port;
+        return filter(row -> column[row] == port);
+    }
+
+    /**
+     * Only matches servers within the given IPv4 or IPv6 network.
+     *
+     * @param cidr the network in CIDR notation, for example "51.0.0.0/8"
+     * @return this query
+     * @throws IllegalArgumentException if the network is malformed
+     */
+    public ScanQuery cidr(String cidr) {
+        var parts = cidr.strip().split("/", 2);
+        Preconditions.checkArgument(parts.length == 2, "Bad CIDR: %s", cidr);
+        var address = InetAddresses.forString(parts[0]);
+        var bytes = address.getAddress();
+        var prefix = Integer.parseInt(parts[1]);
+
+        long high = 0, low = 0;
+        if (address instanceof Inet4Address) {
+            Preconditions.checkArgument(prefix >= 0 && prefix <= 32, "Bad prefix: %s", prefix);
+            prefix += 96;
+            low = 0xFFFF00000000L | (bytes[0] & 0xFFL) << 24 | (bytes[1] & 0xFFL) << 16 | (bytes[2] & 0xFFL) << 8 | bytes[3] & 0xFFL;
+        } else {
+            Preconditions.checkArgument(prefix >= 0 && prefix <= 128, "Bad prefix: %s", prefix);
+            for (var i = 0; i < 8; i++) {
+                high = high << 8 | bytes[i] & 0xFF;
+                low = low << 8 | bytes[i + 8] & 0xFF;
+            }
+        }
+
+        var maskHigh = prefix >= 64 ? -1L : prefix == 0 ? 0 : -1L << (64 - prefix);
+        var maskLow = prefix <= 64 ? 0 : prefix == 128 ? -1L : -1L << (128 - prefix);
+        var networkHigh = high & maskHigh;
+        var networkLow = low & maskLow;
+        var columnHigh = index.addressHigh;
+        var columnLow = index.addressLow;
+        return filter(row -> (columnHigh[row] & maskHigh) == networkHigh && (columnLow[row] & maskLow) == networkLow);
+    }
+
+    /**
+     * Evaluates the query.
+     *
+     * @return the rows matching every filter
+     */
+    public RowSet execute() {
+        var result = candidates.clone();
+        var filters = List.copyOf(this.filters);
+        if (!filters.isEmpty()) {
+            var tasks = (result.length + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                var end = Math.min(result.length, (task + 1) * WORDS_PER_TASK);
+                for (var word = task * WORDS_PER_TASK; word < end; word++) {
+                    var bits = result[word];
+                    for (var i = 0; i < filters.size() && bits != 0; i++) bits = filters.get(i).apply(word, bits);
+                    result[word] = bits;
+                }
+            });
+        }
+        return new RowSet(result, index.rows);
+    }
+
+    private ScanQuery filter(RowFilter filter) {
+        filters.add((word, bits) -> {
+            var result = 0L;
+            var base = word << 6;
+            while (bits != 0) {
+                var bit = Long.numberOfTrailingZeros(bits);
+                if (filter.test(base | bit)) result |= 1L << bit;
+                bits &= bits - 1;
+            }
+            return result;
+        });
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface RowFilter {
+        boolean test(int row);
+    }
+
+    @FunctionalInterface
+    private interface WordFilter {
+        long apply(int word, long candidates);
+    }
+}
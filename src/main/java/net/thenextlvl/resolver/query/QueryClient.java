@@ -0,0 +1,406 @@
+package net.thenextlvl.resolver.query;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A client for the UDP query protocol (GS4) that multiplexes any number of queries over a single
+ * {@link DatagramChannel} and a single thread.
+ * <p>
+ * Every query consists of a handshake, which returns a challenge token, and a full stat request carrying
+ * that token. The server echoes the session id of every request, so responses are matched to their query
+ * no matter in which order they arrive, and responses from any other address are ignored. Requests that
+ * go unanswered are retransmitted after the timeout, up to the configured number of retries, before the
+ * query fails with a {@link SocketTimeoutException}.
+ * <p>
+ * Servers only keep the lower four bits of every byte of the session id, so at most 65536 queries can be
+ * in flight at once. Queries beyond the in-flight limit wait until earlier ones complete.
+ * <p>
+ * Results are completed on the thread of the client, so callbacks must not block. Futures may be completed
+ * early by the caller, for example through {@link CompletableFuture#orTimeout(long, TimeUnit)}; the session
+ * of such a query is released no later than the next timeout of its request.
+ * <p>
+ * <a href="https://wiki.vg/Query">Protocol</a>
+ */
+@NullMarked
+public final class QueryClient implements AutoCloseable {
+    private static final byte TYPE_HANDSHAKE = 0x09;
+    private static final byte TYPE_STAT = 0x00;
+    private static final int SESSIONS = 1 << 16;
+
+    private final Queue<Exchange> submitted = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Exchange> waiting = new ArrayDeque<>();
+    private final ArrayDeque<Exchange> outgoing = new ArrayDeque<>();
+    private final ArrayDeque<Retransmit> retransmits = new ArrayDeque<>();
+    private final Map<Integer, Exchange> sessions = new HashMap<>();
+    private final ByteBuffer receive = ByteBuffer.allocateDirect(65535);
+    private final ByteBuffer send = ByteBuffer.allocateDirect(15);
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final Thread thread;
+    private final long timeout;
+    private final int timeoutMillis;
+    private final int retries;
+    private final int maxInFlight;
+
+    private volatile boolean open = true;
+    private int nextSession = ThreadLocalRandom.current().nextInt(SESSIONS);
+
+    private QueryClient(Builder builder) throws IOException {
+        this.timeoutMillis = builder.timeout;
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(builder.timeout);
+        this.retries = builder.retries;
+        this.maxInFlight = builder.maxInFlight;
+        this.channel = DatagramChannel.open();
+        try {
+            if (builder.receiveBufferSize > 0) channel.setOption(StandardSocketOptions.SO_RCVBUF, builder.receiveBufferSize);
+            channel.bind(builder.localAddress);
+            channel.configureBlocking(false);
+            this.selector = Selector.open();
+            this.key = channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "Query Client");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Queries the full stat of the server at the given address.
+     *
+     * @param address the address of the query port of the server
+     * @return a future completed with the response, or exceptionally with an IOException if the query fails
+     */
+    public CompletableFuture<QueryResponse> query(InetSocketAddress address) {
+        if (address.isUnresolved())
+            return CompletableFuture.failedFuture(new UnknownHostException(address.getHostString()));
+        if (!open) return CompletableFuture.failedFuture(new ClosedChannelException());
+
+        var exchange = new Exchange(address);
+        submitted.add(exchange);
+        selector.wakeup();
+        if (!open && submitted.remove(exchange)) exchange.future.completeExceptionally(new ClosedChannelException());
+        return exchange.future;
+    }
+
+    /**
+     * Queries the full stat of every given server and waits until all queries completed.
+     * The callbacks are invoked on the thread of the client.
+     *
+     * @param addresses the addresses of the query ports of the servers
+     * @param success   a callback function that is invoked with the QueryResponse upon a successful query
+     * @param exception a callback function that is invoked with the address and IOException if a query fails
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void queryAll(Collection<InetSocketAddress> addresses, Consumer<QueryResponse> success,
+                         BiConsumer<InetSocketAddress, IOException> exception) throws InterruptedException {
+        var latch = new CountDownLatch(addresses.size());
+        addresses.forEach(address -> query(address).whenComplete((response, throwable) -> {
+            try {
+                if (response != null) success.accept(response);
+                else exception.accept(address, throwable instanceof IOException e ? e : new IOException(throwable));
+            } finally {
+                latch.countDown();
+            }
+        }));
+        latch.await();
+    }
+
+    /**
+     * Closes the channel. Queries that did not complete yet fail with a {@link ClosedChannelException}.
+     */
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+        if (Thread.currentThread() != thread) Uninterruptibles.joinUninterruptibly(thread);
+    }
+
+    private void run() {
+        try (channel; selector) {
+            while (open) {
+                var now = System.nanoTime();
+                accept();
+                expire(now);
+                flush(now);
+
+                var next = retransmits.peek();
+                var wait = next == null ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(next.due - now) + 1);
+                selector.select(wait);
+                selector.selectedKeys().clear();
+                receive();
+            }
+        } catch (IOException e) {
+            open = false;
+        } finally {
+            IOException closed = new ClosedChannelException();
+            sessions.values().forEach(exchange -> exchange.future.completeExceptionally(closed));
+            waiting.forEach(exchange -> exchange.future.completeExceptionally(closed));
+            for (Exchange exchange; (exchange = submitted.poll()) != null; )
+                exchange.future.completeExceptionally(closed);
+        }
+    }
+
+    /**
+     * Starts submitted queries as long as the in-flight limit permits.
+     */
+    private void accept() {
+        for (Exchange exchange; (exchange = submitted.poll()) != null; ) waiting.add(exchange);
+        while (sessions.size() < maxInFlight && !waiting.isEmpty()) {
+            var exchange = waiting.poll();
+            if (exchange.future.isDone()) continue;
+            exchange.session = allocateSession();
+            sessions.put(exchange.session, exchange);
+            outgoing.add(exchange);
+        }
+    }
+
+    /**
+     * Schedules unanswered requests for retransmission, or fails their query once all retries are used up.
+     */
+    private void expire(long now) {
+        for (Retransmit retransmit; (retransmit = retransmits.peek()) != null && retransmit.due - now <= 0; ) {
+            retransmits.poll();
+            var exchange = retransmit.exchange;
+            if (retransmit.sequence != exchange.sequence) continue;
+            if (exchange.future.isDone()) {
+                // completed by the caller, for example through orTimeout or cancel
+                sessions.remove(exchange.session, exchange);
+                continue;
+            }
+            if (exchange.attempts > retries) fail(exchange, new SocketTimeoutException((exchange.challenge == null
+                    ? "Handshake" : "Full stat") + " timed out after " + exchange.attempts + " attempts of " + timeoutMillis + "ms"));
+            else outgoing.add(exchange);
+        }
+    }
+
+    /**
+     * Sends pending requests until the send buffer of the socket is full.
+     */
+    private void flush(long now) throws IOException {
+        for (Exchange exchange; (exchange = outgoing.peek()) != null; ) {
+            if (exchange.future.isDone()) {
+                outgoing.poll();
+                sessions.remove(exchange.session, exchange);
+                continue;
+            }
+
+            send.clear();
+            send.put((byte) 0xFE).put((byte) 0xFD);
+            if (exchange.challenge == null) {
+                send.put(TYPE_HANDSHAKE).putInt(exchange.session);
+            } else {
+                send.put(TYPE_STAT).putInt(exchange.session).putInt(exchange.challenge).putInt(0);
+            }
+            send.flip();
+
+            try {
+                if (channel.send(send, exchange.address) == 0) break;
+            } catch (ClosedChannelException e) {
+                throw e;
+            } catch (IOException e) {
+                outgoing.poll();
+                fail(exchange, e);
+                continue;
+            }
+
+            outgoing.poll();
+            exchange.attempts++;
+            exchange.sentAt = now;
+            retransmits.add(new Retransmit(exchange, ++exchange.sequence, now + timeout));
+        }
+        key.interestOps(outgoing.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Reads every pending datagram and advances the query it belongs to.
+     */
+    private void receive() throws IOException {
+        for (; ; ) {
+            receive.clear();
+            var source = channel.receive(receive);
+            if (source == null) return;
+            receive.flip();
+            if (receive.remaining() < 5) continue;
+
+            var type = receive.get();
+            var exchange = sessions.get(receive.getInt());
+            if (exchange == null || !exchange.address.equals(source)) continue;
+
+            try {
+                if (type == TYPE_HANDSHAKE && exchange.challenge == null) {
+                    exchange.challenge = (int) Long.parseLong(QueryResponse.readString(receive).strip());
+                    exchange.latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - exchange.sentAt);
+                    exchange.attempts = 0;
+                    exchange.sequence++;
+                    outgoing.add(exchange);
+                } else if (type == TYPE_STAT && exchange.challenge != null) {
+                    var response = QueryResponse.parse(exchange.address, exchange.latency, receive);
+                    sessions.remove(exchange.session);
+                    exchange.future.complete(response);
+                }
+            } catch (ProtocolException e) {
+                fail(exchange, e);
+            } catch (NumberFormatException e) {
+                fail(exchange, (ProtocolException) new ProtocolException("Malformed challenge token").initCause(e));
+            }
+        }
+    }
+
+    private void fail(Exchange exchange, IOException exception) {
+        sessions.remove(exchange.session, exchange);
+        exchange.future.completeExceptionally(exception);
+    }
+
+    /**
+     * Returns an unused session id. Only the lower four bits of every byte are used,
+     * since servers drop the others.
+     */
+    private int allocateSession() {
+        for (; ; ) {
+            var index = nextSession++ & (SESSIONS - 1);
+            var session = (index & 0xF000) << 12 | (index & 0x0F00) << 8 | (index & 0x00F0) << 4 | index & 0x000F;
+            if (!sessions.containsKey(session)) return session;
+        }
+    }
+
+    public static class Builder {
+        private @Nullable InetSocketAddress localAddress = null;
+        private int timeout = 1000;
+        private int retries = 2;
+        private int maxInFlight = 4096;
+        private int receiveBufferSize = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the local address the channel is bound to.
+         *
+         * @param localAddress the local address, or null to let the system choose
+         * @return this builder
+         */
+        public Builder localAddress(@Nullable InetSocketAddress localAddress) {
+            this.localAddress = localAddress;
+            return this;
+        }
+
+        /**
+         * Sets the time in milliseconds to wait for a response before a request is retransmitted.
+         *
+         * @param timeout the timeout in milliseconds
+         * @return this builder
+         */
+        public Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets how many times an unanswered request is retransmitted before its query fails.
+         *
+         * @param retries the number of retransmissions
+         * @return this builder
+         */
+        public Builder retries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        /**
+         * Sets the number of queries that may be in flight at once.
+         *
+         * @param maxInFlight the in-flight limit, at most 65536
+         * @return this builder
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the size of the socket receive buffer (SO_RCVBUF), which absorbs bursts of responses.
+         *
+         * @param receiveBufferSize the buffer size in bytes, or 0 for the system default
+         * @return this builder
+         */
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        /**
+         * Opens the channel and starts the thread of the client.
+         *
+         * @return the new client
+         * @throws IOException if the channel cannot be opened or bound
+         */
+        public QueryClient build() throws IOException {
+            Preconditions.checkArgument(timeout > 0, "timeout must be positive");
+            Preconditions.checkArgument(retries >= 0, "retries must not be negative");
+            Preconditions.checkArgument(maxInFlight > 0 && maxInFlight <= SESSIONS, "maxInFlight out of range");
+            return new QueryClient(this);
+        }
+    }
+
+    /**
+     * The state of a single query, only accessed by the thread of the client once submitted.
+     */
+    private static final class Exchange {
+        private final CompletableFuture<QueryResponse> future = new CompletableFuture<>();
+        private final InetSocketAddress address;
+
+        private @Nullable Integer challenge;
+        private int session;
+        private int attempts;
+        private int sequence;
+        private long sentAt;
+        private long latency;
+
+        private Exchange(InetSocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * A pending retransmission of the request with the given sequence number.
+     * It is stale once the exchange moved on to another request.
+     * Since all requests share the same timeout, retransmissions are due in the order they were queued.
+     */
+    private record Retransmit(Exchange exchange, int sequence, long due) {
+    }
+}
@@ -0,0 +1,206 @@
+package net.thenextlvl.resolver.query;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class that represents the full stat response of a server to the UDP query protocol.
+ * <p>
+ * Unlike the {@link net.thenextlvl.resolver.ServerPing}, the full stat carries the complete list of
+ * online players and, on servers that report them, the installed plugins. Responses are keyed by the
+ * same address as the ServerPing of the server, so both can be joined on {@link #getAddress()}.
+ * <p>
+ * <a href="https://wiki.vg/Query">Protocol</a>
+ */
+@NullMarked
+public final class QueryResponse {
+    private static final int PADDING_KEY_VALUES = 11; // "splitnum\0\u0080\0"
+    private static final int PADDING_PLAYERS = 10; // "\u0001player_\0\0"
+
+    private final Map<String, String> values;
+    private final List<String> players;
+    private final InetSocketAddress address;
+    private final long latency;
+
+    private QueryResponse(Map<String, String> values, List<String> players, InetSocketAddress address, long latency) {
+        this.values = Collections.unmodifiableMap(values);
+        this.players = Collections.unmodifiableList(players);
+        this.address = address;
+        this.latency = latency;
+    }
+
+    /**
+     * Parses the payload of a full stat response.
+     *
+     * @param address the address of the server
+     * @param latency the round trip time of the handshake in milliseconds
+     * @param payload the response, positioned after the packet type and session id
+     * @return the parsed response
+     * @throws ProtocolException if the payload is malformed
+     */
+    static QueryResponse parse(InetSocketAddress address, long latency, ByteBuffer payload) throws ProtocolException {
+        if (payload.remaining() < PADDING_KEY_VALUES) throw new ProtocolException("Truncated full stat response");
+        payload.position(payload.position() + PADDING_KEY_VALUES);
+
+        var values = new LinkedHashMap<String, String>();
+        for (String key; !(key = readString(payload)).isEmpty(); ) {
+            values.put(key, readString(payload));
+        }
+
+        var players = new ArrayList<String>();
+        if (payload.remaining() >= PADDING_PLAYERS) {
+            payload.position(payload.position() + PADDING_PLAYERS);
+            for (String player; payload.hasRemaining() && !(player = readString(payload)).isEmpty(); ) {
+                players.add(player);
+            }
+        }
+        return new QueryResponse(values, players, address, latency);
+    }
+
+    /**
+     * Reads a null terminated string.
+     *
+     * @param buffer the buffer to read from
+     * @return the string, without its terminator
+     * @throws ProtocolException if the buffer ends before the terminator
+     */
+    static String readString(ByteBuffer buffer) throws ProtocolException {
+        var start = buffer.position();
+        for (var i = start; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) continue;
+            var bytes = new byte[i - start];
+            buffer.get(bytes).get();
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        throw new ProtocolException("Unterminated string in query response");
+    }
+
+    /**
+     * Returns the message of the day, including its formatting codes.
+     *
+     * @return the message of the day
+     */
+    public String getMotd() {
+        return values.getOrDefault("hostname", "");
+    }
+
+    public String getGameType() {
+        return values.getOrDefault("gametype", "");
+    }
+
+    public String getGameId() {
+        return values.getOrDefault("game_id", "");
+    }
+
+    public String getVersion() {
+        return values.getOrDefault("version", "");
+    }
+
+    /**
+     * Returns the server software as reported in front of the plugin list, for example {@code Paper on 1.21}.
+     *
+     * @return the server software, or null if the server does not report it
+     */
+    public @Nullable String getServerMod() {
+        var plugins = values.getOrDefault("plugins", "");
+        var separator = plugins.indexOf(": ");
+        var mod = separator < 0 ? plugins : plugins.substring(0, separator);
+        return mod.isBlank() ? null : mod.strip();
+    }
+
+    /**
+     * Returns the installed plugins, each including its version.
+     *
+     * @return the plugins, empty if the server does not report them
+     */
+    public List<String> getPlugins() {
+        var plugins = values.getOrDefault("plugins", "");
+        var separator = plugins.indexOf(": ");
+        if (separator < 0) return List.of();
+        return Arrays.stream(plugins.substring(separator + 2).split("; "))
+                .map(String::strip)
+                .filter(plugin -> !plugin.isEmpty())
+                .toList();
+    }
+
+    public String getMap() {
+        return values.getOrDefault("map", "");
+    }
+
+    public int getOnlinePlayers() {
+        return parseInt(values.get("numplayers"));
+    }
+
+    public int getMaxPlayers() {
+        return parseInt(values.get("maxplayers"));
+    }
+
+    public int getHostPort() {
+        return parseInt(values.get("hostport"));
+    }
+
+    public String getHostIp() {
+        return values.getOrDefault("hostip", "");
+    }
+
+    /**
+     * Returns the names of all online players.
+     *
+     * @return the player names
+     */
+    public List<String> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns every key value pair of the response, including keys not covered by the getters.
+     *
+     * @return the raw values, in the order sent by the server
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Returns the round trip time of the handshake.
+     *
+     * @return the latency in milliseconds
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    private static int parseInt(@Nullable String value) {
+        if (value == null) return 0;
+        try {
+            return Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueryResponse{" +
+               "values=" + values +
+               ", players=" + players +
+               ", address=" + address +
+               ", latency=" + latency +
+               '}';
+    }
+}
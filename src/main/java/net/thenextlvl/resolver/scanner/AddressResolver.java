@@ -1,15 +1,28 @@
 package net.thenextlvl.resolver.scanner;
 
 import com.velocitypowered.api.network.ProtocolVersion;
+import net.thenextlvl.resolver.CancellationToken;
 import net.thenextlvl.resolver.Ping;
 import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.ServerPing;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
+import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.UnknownHostException;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -19,18 +32,52 @@ import java.util.function.Consumer;
  */
 @NullMarked
 public class AddressResolver {
+    private static final PingOptions DEFAULT_OPTIONS = PingOptions.builder(InetSocketAddress.createUnresolved("localhost", 25565))
+            .protocolVersion(ProtocolVersion.MAXIMUM_VERSION)
+            .timeout(1000)
+            .build();
+
     private final ExecutorService pool = Executors.newCachedThreadPool();
     private final CountDownLatch latch;
     private final List<String> hostnames;
+    private final Resolution resolution;
+    private final PingOptions template;
 
     /**
-     * Constructs an AddressResolver instance.
+     * Constructs an AddressResolver instance that waits for the SRV lookup of every hostname.
      *
      * @param hostnames The list of hostnames to resolve and ping.
      */
     public AddressResolver(List<String> hostnames) {
+        this(hostnames, Resolution.SRV_FIRST);
+    }
+
+    /**
+     * Constructs an AddressResolver instance.
+     *
+     * @param hostnames  The list of hostnames to resolve and ping.
+     * @param resolution The way hostnames are resolved by {@link #startPing(Consumer, BiConsumer)}.
+     */
+    public AddressResolver(List<String> hostnames, Resolution resolution) {
+        this(hostnames, resolution, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Constructs an AddressResolver instance deriving the options of every ping from the given template.
+     * <p>
+     * The address of the template is ignored, every hostname is pinged with a copy of the template
+     * carrying its resolved address. Without a template, pings use the maximum protocol version and
+     * a timeout of 1000 ms.
+     *
+     * @param hostnames  The list of hostnames to resolve and ping.
+     * @param resolution The way hostnames are resolved by {@link #startPing(Consumer, BiConsumer)}.
+     * @param template   The options every ping is derived from, like the source addresses or socket tuning.
+     */
+    public AddressResolver(List<String> hostnames, Resolution resolution, PingOptions template) {
         this.latch = new CountDownLatch(hostnames.size());
         this.hostnames = hostnames;
+        this.resolution = resolution;
+        this.template = template;
     }
 
     /**
@@ -43,9 +90,54 @@ public class AddressResolver {
      * @throws InterruptedException If the current thread is interrupted while waiting.
      */
     public void startScan(Consumer<PingOptions> consumer) throws InterruptedException {
-        hostnames.forEach(hostname -> submitTest(hostname, consumer));
+        hostnames.forEach(hostname -> submitTest(hostname, (ignored, options) -> consumer.accept(options)));
+        latch.await();
+        pool.shutdown();
+    }
+
+    /**
+     * Resolves the list of hostnames and pings every distinct endpoint once.
+     * <p>
+     * Hostnames resolving to the same IP address and port, for example vanity domains or network aliases,
+     * share a single ping. Its result is handed to the callbacks once per hostname, with the address
+     * carrying that hostname and the resolved IP address. Hostnames that cannot be resolved are pinged
+     * on their own.
+     * <p>
+     * Note that the shared ping performs its handshake with the first hostname resolved for the endpoint,
+     * so proxies answering differently per forced host are only observed through that hostname.
+     * <p>
+     * With {@link Resolution#HAPPY_EYEBALLS} every hostname is pinged on its own instead, see
+     * {@link Resolution#HAPPY_EYEBALLS} for details.
+     *
+     * @param success   a callback function that is invoked with the ServerPing result of every hostname upon a successful ping
+     * @param exception a callback function that is invoked with the PingOptions of every hostname and the IOException if a ping fails
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    public void startPing(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) throws InterruptedException {
+        if (resolution == Resolution.HAPPY_EYEBALLS) {
+            hostnames.forEach(hostname -> submitRace(hostname, success, exception));
+            latch.await();
+            pool.shutdown();
+            return;
+        }
+
+        var endpoints = new ConcurrentHashMap<InetSocketAddress, Endpoint>();
+        hostnames.forEach(hostname -> submitTest(hostname, (name, options) -> {
+            // InetSocketAddress equality only considers the IP address and port once resolved
+            endpoints.computeIfAbsent(options.getAddress(), ignored -> new Endpoint(options))
+                    .aliases().add(withHostname(name, options.getAddress()));
+        }));
         latch.await();
         pool.shutdown();
+
+        var options = endpoints.values().stream().map(Endpoint::options).toList();
+        new ServerScanner(options).startScan(ping -> {
+            var endpoint = endpoints.get(ping.getAddress());
+            endpoint.aliases().forEach(alias -> success.accept(ping.withAddress(alias)));
+        }, (option, e) -> {
+            var endpoint = endpoints.get(option.getAddress());
+            endpoint.aliases().forEach(alias -> exception.accept(option.toBuilder().address(alias).build(), e));
+        });
     }
 
     /**
@@ -54,28 +146,165 @@ public class AddressResolver {
      * This method utilizes threads from an ExecutorService for asynchronous execution.
      *
      * @param string The hostname string to be resolved, optionally including a port separated by a colon.
-     * @param consumer A Consumer that processes the generated PingOptions.
+     * @param consumer A BiConsumer that processes the hostname and the generated PingOptions.
      */
-    private void submitTest(String string, Consumer<PingOptions> consumer) {
+    private void submitTest(String string, BiConsumer<String, PingOptions> consumer) {
         pool.submit(() -> {
             try {
                 var split = string.split(":", 2);
                 var hostname = split[0].toLowerCase().strip();
 
-                var address = Ping.resolveAddress(hostname).orElseGet(() -> {
-                    var port = split.length > 1 ? Integer.parseInt(split[1].strip()) : 25565;
-                    return new InetSocketAddress(hostname, port);
-                });
+                var address = Ping.resolveAddress(hostname).orElseGet(() ->
+                        new InetSocketAddress(hostname, port(split)));
 
-                var pingOptions = PingOptions.builder(address)
-                        .protocolVersion(ProtocolVersion.MAXIMUM_VERSION)
-                        .timeout(1000)
-                        .build();
+                consumer.accept(hostname, options(address));
+            } finally {
+                latch.countDown();
+            }
+        });
+    }
 
-                consumer.accept(pingOptions);
+    /**
+     * Submits a task that pings the given hostname string, racing its SRV lookup against
+     * a direct connection to the hostname.
+     * <p>
+     * The direct attempt resolves the hostname and pings it on the given or default port while the SRV
+     * lookup is still in flight. If no SRV record exists, or it points to that same hostname and port,
+     * the result of the direct attempt is reported. Otherwise the direct attempt is cancelled and the
+     * SRV target is pinged instead.
+     * <p>
+     * Malformed status responses are reported to the exception callback as {@link ProtocolException}.
+     *
+     * @param string    The hostname string to be resolved, optionally including a port separated by a colon.
+     * @param success   A callback function that is invoked with the ServerPing result upon a successful ping.
+     * @param exception A callback function that is invoked with the PingOptions and IOException if a ping fails.
+     */
+    private void submitRace(String string, Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+        pool.submit(() -> {
+            try {
+                var split = string.split(":", 2);
+                var hostname = split[0].toLowerCase().strip();
+                var port = port(split);
+
+                var token = new CancellationToken();
+                var direct = pool.submit(() -> {
+                    var options = options(new InetSocketAddress(hostname, port));
+                    try {
+                        return new Attempt(options, Ping.ping(options, token), null);
+                    } catch (IOException e) {
+                        return new Attempt(options, null, e);
+                    } catch (RuntimeException e) {
+                        return new Attempt(options, null, malformed(e));
+                    }
+                });
+
+                var srv = Ping.resolveAddress(hostname).orElse(null);
+                if (srv == null || (srv.getHostString().equalsIgnoreCase(hostname) && srv.getPort() == port)) {
+                    report(await(direct, token), success, exception);
+                } else {
+                    token.cancel();
+                    // report the queried hostname like SRV_FIRST does, not the SRV target
+                    var options = options(withHostname(hostname, srv));
+                    try {
+                        success.accept(Ping.ping(options));
+                    } catch (IOException e) {
+                        exception.accept(options, e);
+                    } catch (RuntimeException e) {
+                        exception.accept(options, malformed(e));
+                    }
+                }
             } finally {
                 latch.countDown();
             }
         });
     }
+
+    private static @Nullable Attempt await(Future<Attempt> attempt, CancellationToken token) {
+        try {
+            return attempt.get();
+        } catch (InterruptedException e) {
+            token.cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void report(@Nullable Attempt attempt, Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+        if (attempt == null) return;
+        if (attempt.ping() != null) success.accept(attempt.ping());
+        else if (attempt.exception() != null) exception.accept(attempt.options(), attempt.exception());
+    }
+
+    private static ProtocolException malformed(RuntimeException cause) {
+        var exception = new ProtocolException("Malformed status response: " + cause.getMessage());
+        exception.initCause(cause);
+        return exception;
+    }
+
+    private static int port(String[] split) {
+        return split.length > 1 ? Integer.parseInt(split[1].strip()) : 25565;
+    }
+
+    private PingOptions options(InetSocketAddress address) {
+        return template.toBuilder().address(address).build();
+    }
+
+    /**
+     * Creates a copy of the given address that reports the given hostname but keeps the resolved IP address.
+     *
+     * @param hostname the hostname to attach
+     * @param address  the resolved address
+     * @return the address carrying the hostname, or the given address if it is unresolved
+     */
+    private static InetSocketAddress withHostname(String hostname, InetSocketAddress address) {
+        if (address.isUnresolved()) return address;
+        try {
+            var ip = InetAddress.getByAddress(hostname, address.getAddress().getAddress());
+            return new InetSocketAddress(ip, address.getPort());
+        } catch (UnknownHostException e) {
+            return address;
+        }
+    }
+
+    /**
+     * The way hostnames are resolved before they are pinged.
+     */
+    public enum Resolution {
+        /**
+         * Waits for the SRV lookup of a hostname before resolving and pinging the address it points to.
+         * Hostnames sharing an endpoint share a single ping.
+         */
+        SRV_FIRST,
+        /**
+         * Resolves and pings the hostname on its given or default port while its SRV lookup is still
+         * in flight, so hostnames without an SRV record, the vast majority, are answered about a full
+         * DNS round trip earlier. The direct attempt is cancelled if the SRV record points elsewhere.
+         * Every hostname is pinged on its own, since its endpoint is not known before the ping starts.
+         */
+        HAPPY_EYEBALLS
+    }
+
+    /**
+     * The outcome of the direct attempt of a {@link Resolution#HAPPY_EYEBALLS} race.
+     *
+     * @param options   the options the attempt was made with
+     * @param ping      the ping result, or null if the attempt failed
+     * @param exception the failure, or null if the attempt succeeded
+     */
+    private record Attempt(PingOptions options, @Nullable ServerPing ping, @Nullable IOException exception) {
+    }
+
+    /**
+     * A distinct resolved endpoint together with every hostname address that resolved to it.
+     *
+     * @param options the options used to ping the endpoint
+     * @param aliases the addresses of all hostnames sharing the endpoint
+     */
+    private record Endpoint(PingOptions options, Queue<InetSocketAddress> aliases) {
+        private Endpoint(PingOptions options) {
+            this(options, new ConcurrentLinkedQueue<>());
+        }
+    }
 }
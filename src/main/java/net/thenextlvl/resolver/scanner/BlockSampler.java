@@ -0,0 +1,180 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Block-level statistics driving an adaptive two-phase sweep of the IPv4 address space.
+ * <p>
+ * Phase one probes only a fixed sample of the addresses of every /24 block and records the hits.
+ * Phase two probes the remaining addresses of the blocks that turned out to be active, either because
+ * the sample hit a server or because the block had hits in an earlier run. Blocks without any server,
+ * the vast majority, therefore cost only the sample, at the price of missing servers in blocks whose
+ * sample happens to miss all of them.
+ * <p>
+ * The sample of a block is a pseudo-random permutation of its host numbers, offset per block, so
+ * hosts that are commonly used for servers are not systematically skipped across all blocks.
+ * <p>
+ * Statistics are kept in a single int array indexed by /24 number (16M entries, 64 MiB), with the number
+ * of probes in the lower and the number of hits in the upper half. Recording is thread-safe and lock-free.
+ */
+@NullMarked
+public final class BlockSampler {
+    /**
+     * The number of /24 blocks in the IPv4 address space.
+     */
+    public static final int BLOCKS = 1 << 24;
+
+    private static final VarHandle STATS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int STRIDE = 167; // odd, so multiplying by it permutes the host numbers
+    private static final int STRIDE_INVERSE = 23; // 167 * 23 = 1 (mod 256)
+    private static final int HIT = 1 << 16;
+
+    private final int[] stats = new int[BLOCKS];
+    private final long[] previous;
+    private final int sampleSize;
+
+    /**
+     * Constructs a new block sampler without any hits from earlier runs.
+     *
+     * @param sampleSize the number of addresses per /24 block probed in phase one, between 1 and 256
+     */
+    public BlockSampler(int sampleSize) {
+        this(sampleSize, new long[BLOCKS / Long.SIZE]);
+    }
+
+    private BlockSampler(int sampleSize, long[] previous) {
+        Preconditions.checkArgument(sampleSize > 0 && sampleSize <= 256, "sampleSize must be between 1 and 256");
+        this.sampleSize = sampleSize;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the active blocks of an earlier run, as written by {@link #save(Path)}.
+     * These blocks are considered active in phase two regardless of their sample.
+     *
+     * @param file       the file to read
+     * @param sampleSize the number of addresses per /24 block probed in phase one, between 1 and 256
+     * @return the new block sampler
+     * @throws IOException if the file cannot be read
+     */
+    public static BlockSampler load(Path file, int sampleSize) throws IOException {
+        var previous = new long[BLOCKS / Long.SIZE];
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (var i = 0; i < previous.length; i++) previous[i] = input.readLong();
+        }
+        return new BlockSampler(sampleSize, previous);
+    }
+
+    /**
+     * Writes the set of blocks that had hits in this run, as a 2 MiB bitmap.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (var word = 0; word < previous.length; word++) {
+                var bits = 0L;
+                for (var bit = 0; bit < Long.SIZE; bit++) {
+                    if (getHits(word * Long.SIZE + bit) > 0) bits |= 1L << bit;
+                }
+                output.writeLong(bits);
+            }
+        }
+    }
+
+    /**
+     * Returns the host number of the given sample of a block.
+     *
+     * @param block the /24 block number, the upper 24 bits of the address
+     * @param index the index of the sample, below the sample size
+     * @return the host number, the lower 8 bits of the address
+     */
+    public int sampleHost(int block, int index) {
+        return (index * STRIDE + offset(block)) & 0xFF;
+    }
+
+    /**
+     * Returns whether the given address belongs to the sample of its block.
+     *
+     * @param address the address as an unsigned 32-bit value
+     * @return true if the address is probed in phase one
+     */
+    public boolean isSample(long address) {
+        var block = (int) (address >>> 8) & (BLOCKS - 1);
+        var index = (((int) address - offset(block)) * STRIDE_INVERSE) & 0xFF;
+        return index < sampleSize;
+    }
+
+    /**
+     * Records the outcome of probing the given address.
+     *
+     * @param address the address as an unsigned 32-bit value
+     * @param hit     whether a server answered
+     */
+    public void record(long address, boolean hit) {
+        var block = (int) (address >>> 8) & (BLOCKS - 1);
+        STATS.getAndAdd(stats, block, hit ? HIT + 1 : 1);
+    }
+
+    /**
+     * Returns whether the remaining addresses of the given block are probed in phase two.
+     *
+     * @param block the /24 block number
+     * @return true if the block had hits in this or an earlier run
+     */
+    public boolean isActive(int block) {
+        return getHits(block) > 0 || (previous[block >>> 6] & 1L << block) != 0;
+    }
+
+    /**
+     * Returns the number of blocks that are active.
+     *
+     * @return the number of active blocks
+     * @see #isActive(int)
+     */
+    public int countActive() {
+        var active = 0;
+        for (var block = 0; block < BLOCKS; block++) if (isActive(block)) active++;
+        return active;
+    }
+
+    /**
+     * Returns the number of blocks that had hits in this run, not counting hits of earlier runs.
+     *
+     * @return the number of blocks with hits
+     */
+    public int countHitBlocks() {
+        var hit = 0;
+        for (var block = 0; block < BLOCKS; block++) if (getHits(block) > 0) hit++;
+        return hit;
+    }
+
+    public int getProbes(int block) {
+        return (int) STATS.getVolatile(stats, block) & 0xFFFF;
+    }
+
+    public int getHits(int block) {
+        return (int) STATS.getVolatile(stats, block) >>> 16;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    private static int offset(int block) {
+        var mixed = block * 0x9E3779B9;
+        return mixed >>> 24;
+    }
+}
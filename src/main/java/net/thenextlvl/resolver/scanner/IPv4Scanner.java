@@ -1,17 +1,145 @@
 package net.thenextlvl.resolver.scanner;
 
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.util.Cidr;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class IPv4Scanner {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        var sampleSize = 0;
+        var port = 25565;
+        var timeout = 1000;
+        var concurrency = 4096;
+        Path blocks = null;
+        for (var arg : args) {
+            if (arg.startsWith("--sample=")) sampleSize = Integer.parseInt(arg.substring("--sample=".length()));
+            else if (arg.startsWith("--blocks=")) blocks = Path.of(arg.substring("--blocks=".length()));
+            else if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+            else if (arg.startsWith("--timeout=")) timeout = Integer.parseInt(arg.substring("--timeout=".length()));
+            else if (arg.startsWith("--concurrency=")) concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+        }
+
+        var template = PingOptions.builder(InetSocketAddress.createUnresolved("0.0.0.0", port))
+                .timeout(timeout)
+                .abortiveClose(true)
+                .build();
+
+        try (var prober = new Prober(template, concurrency)) {
+            scan(prober, sampleSize, blocks);
+        }
+    }
+
+    /**
+     * Sweeps the public IPv4 address space, either address by address or in two phases if a sample size is given.
+     *
+     * @param prober     the prober running the probes
+     * @param sampleSize the number of addresses sampled per /24 block, or 0 to probe every address
+     * @param blocks     the file the active blocks are loaded from and saved to, or null for none
+     * @throws IOException if the active blocks cannot be loaded or saved
+     */
+    private static void scan(Prober prober, int sampleSize, @Nullable Path blocks) throws IOException {
+        if (sampleSize <= 0) {
+            sweep("sequential IPv4 enumeration", prober, (block, from, to) -> {
+                for (var address = from; address <= to; address++) prober.submit(address, null);
+                return to - from + 1;
+            });
+            return;
+        }
+
+        // two-phase sweep: sample every /24 block first, then fully probe only the active blocks
+        var sampler = blocks != null && Files.exists(blocks)
+                ? BlockSampler.load(blocks, sampleSize)
+                : new BlockSampler(sampleSize);
+
+        var size = sampleSize;
+        sweep("phase one, sampling %s addresses per /24 block".formatted(size), prober, (block, from, to) -> {
+            var probed = 0;
+            for (var index = 0; index < size; index++) {
+                var address = ((long) block << 8) | sampler.sampleHost(block, index);
+                if (address < from || address > to) continue;
+                prober.submit(address, sampler);
+                probed++;
+            }
+            return probed;
+        });
+
+        System.out.printf("%s of %s /24 blocks active%n", sampler.countActive(), BlockSampler.BLOCKS);
+
+        sweep("phase two, probing active /24 blocks", prober, (block, from, to) -> {
+            if (!sampler.isActive(block)) return 0;
+            var probed = 0;
+            for (var address = from; address <= to; address++) {
+                if (sampler.isSample(address)) continue;
+                prober.submit(address, sampler);
+                probed++;
+            }
+            return probed;
+        });
+
+        if (blocks == null) return;
+        if (sampler.countHitBlocks() > 0) sampler.save(blocks);
+        else System.out.printf("No block had hits, keeping %s%n", blocks);
+    }
+
+    /**
+     * Pings the given address on the port of the template.
+     * A server answering with a malformed status response still counts as a hit, since it is reachable.
+     *
+     * @param template the options every ping is derived from
+     * @param address  the address as an unsigned 32-bit value
+     * @return whether a server answered
+     */
+    static boolean probe(PingOptions template, long address) {
+        var options = template.toBuilder().address(new InetSocketAddress(toInetAddress(address), template.getAddress().getPort())).build();
+        try {
+            var ping = Ping.ping(options);
+            System.out.printf("%s:%s %s%n", Cidr.format(address), options.getAddress().getPort(),
+                    ping.getVersion() != null ? ping.getVersion().getName() : "unknown version");
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private static InetAddress toInetAddress(long address) {
+        try {
+            return InetAddress.getByAddress(new byte[]{(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address});
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Visits every /24 block of the allowed address space, or the allowed part of it, in parallel,
+     * and waits until every probe the visitor submitted completed.
+     *
+     * @param name    the name of the sweep, for progress output
+     * @param prober  the prober the visitor submits its probes to
+     * @param visitor the visitor probing the addresses of a block
+     */
+    private static void sweep(String name, Prober prober, BlockVisitor visitor) {
         var startTime = System.currentTimeMillis();
 
         var numThreads = Runtime.getRuntime().availableProcessors();
@@ -37,16 +165,17 @@ public class IPv4Scanner {
         try (var executor = Executors.newFixedThreadPool(workers);
              var progressExecutor = Executors.newSingleThreadScheduledExecutor()) {
 
-            System.out.printf("Using %s threads for sequential IPv4 enumeration%n", workers);
+            System.out.printf("Using %s threads and %s concurrent probes for %s%n", workers, prober.getConcurrency(), name);
             System.out.printf("Total public IPv4 addresses to process: %s%n", totalAddresses);
 
             var totalCount = new AtomicLong(0);
+            var probedCount = new AtomicLong(0);
             var progressTask = progressExecutor.scheduleAtFixedRate(() -> {
                 var count = totalCount.get();
                 if (count <= 0) return;
                 var elapsed = System.currentTimeMillis() - startTime;
                 var progress = (count * 100d) / finalTotalAddresses;
-                System.out.printf("Progress: %.2f%% - %d/%d addresses processed in %ds%n", progress, count, finalTotalAddresses, elapsed / 1000);
+                System.out.printf("Progress: %.2f%% - %d/%d addresses processed in %ds (%d probed)%n", progress, count, finalTotalAddresses, elapsed / 1000, probedCount.get());
                 System.out.printf("Average: %.3fns per address%n", ((double) elapsed / (double) count) * 1000d * 1000d);
             }, 5, 5, TimeUnit.SECONDS);
 
@@ -55,28 +184,31 @@ public class IPv4Scanner {
                 final var assignedIntervals = threadIntervals.get(i);
 
                 futures.add(executor.submit(() -> {
-                    var localCount = 0;
+                    var localCount = 0L;
+                    var localProbed = 0L;
 
                     for (var interval : assignedIntervals) {
                         var start = interval[0];
                         var end = interval[1];
 
-                        for (var addr = start; addr <= end; addr++) {
-                            var dotted = intToDotted(addr);
-                            // todo: process
-                            localCount++;
+                        for (var block = (int) (start >>> 8); block <= (int) (end >>> 8); block++) {
+                            var from = Math.max(start, (long) block << 8);
+                            var to = Math.min(end, ((long) block << 8) | 0xFF);
+                            localProbed += visitor.visit(block, from, to);
+                            localCount += to - from + 1;
 
-                            if (localCount % 1_000_000 == 0) {
+                            if (localCount >= 1_000_000) {
                                 totalCount.addAndGet(localCount);
+                                probedCount.addAndGet(localProbed);
                                 localCount = 0;
+                                localProbed = 0;
                             }
                         }
                     }
 
                     // Add remaining count
-                    if (localCount > 0) {
-                        totalCount.addAndGet(localCount);
-                    }
+                    totalCount.addAndGet(localCount);
+                    probedCount.addAndGet(localProbed);
                 }));
             }
 
@@ -87,6 +219,7 @@ public class IPv4Scanner {
                     e.printStackTrace();
                 }
             }
+            prober.awaitIdle();
 
             progressTask.cancel(false);
 
@@ -95,6 +228,7 @@ public class IPv4Scanner {
 
             System.out.println("\n=== Final Results ===");
             System.out.printf("Total addresses processed: %s%n", totalProcessed);
+            System.out.printf("Total addresses probed: %s%n", probedCount.get());
             if (totalProcessed == totalAddresses) {
                 System.out.println("✓ All public IPv4 addresses enumerated successfully");
             } else {
@@ -106,19 +240,89 @@ public class IPv4Scanner {
         }
     }
 
-    private static String intToDotted(long value) {
-        var v = value & 0xFFFFFFFFL;
-        var a = (int) ((v >> 24) & 0xFF);
-        var b = (int) ((v >> 16) & 0xFF);
-        var c = (int) ((v >> 8) & 0xFF);
-        var d = (int) (v & 0xFF);
-        return a + "." + b + "." + c + "." + d;
+    /**
+     * Runs probes on a fixed number of ping threads.
+     * <p>
+     * Almost every probed address never answers, so a probe spends nearly all of its time waiting for the
+     * timeout. Probes are therefore run with a concurrency far above the number of processors, and submitting
+     * blocks while all ping threads are busy, so memory stays bounded however fast blocks are visited.
+     */
+    static final class Prober implements AutoCloseable {
+        private final ExecutorService pool;
+        private final Semaphore permits;
+        private final PingOptions template;
+        private final int concurrency;
+
+        Prober(PingOptions template, int concurrency) {
+            Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+            this.pool = Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("IPv4 Ping #", 0).daemon().factory());
+            this.permits = new Semaphore(concurrency);
+            this.template = template;
+            this.concurrency = concurrency;
+        }
+
+        /**
+         * Probes the given address once a ping thread is free.
+         *
+         * @param address the address as an unsigned 32-bit value
+         * @param sampler the sampler the outcome is recorded in, or null to discard it
+         */
+        void submit(long address, @Nullable BlockSampler sampler) {
+            permits.acquireUninterruptibly();
+            try {
+                pool.execute(() -> {
+                    try {
+                        var hit = probe(template, address);
+                        if (sampler != null) sampler.record(address, hit);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Waits until every submitted probe completed.
+         */
+        void awaitIdle() {
+            permits.acquireUninterruptibly(concurrency);
+            permits.release(concurrency);
+        }
+
+        int getConcurrency() {
+            return concurrency;
+        }
+
+        @Override
+        public void close() {
+            awaitIdle();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Submits the probes of the addresses of a single /24 block.
+     */
+    @FunctionalInterface
+    private interface BlockVisitor {
+        /**
+         * Submits the probes of the addresses of the given block.
+         *
+         * @param block the /24 block number
+         * @param from  the first allowed address of the block, inclusive
+         * @param to    the last allowed address of the block, inclusive
+         * @return the number of addresses submitted
+         */
+        long visit(int block, long from, long to);
     }
 
-    private static class PublicIpv4Iterator {
+    static class PublicIpv4Iterator {
         public static List<long[]> getAllowedIntervals() {
-            var reserved = mergeIntervals(buildReservedCidrs()
-                    .map(PublicIpv4Iterator::cidrToRange)
+            var reserved = Cidr.merge(buildReservedCidrs()
+                    .map(Cidr::toRange)
                     .collect(Collectors.toList()));
             return buildAllowedFromReserved(reserved);
         }
@@ -145,56 +349,6 @@ public class IPv4Scanner {
             );
         }
 
-        /**
-         * Convert CIDR string (e.g., "192.0.2.0/24") to [startInclusive, endInclusive] (as unsigned longs)
-         */
-        private static long[] cidrToRange(String cidr) {
-            var parts = cidr.trim().split("/");
-            if (parts.length != 2) throw new IllegalArgumentException("Bad CIDR: " + cidr);
-
-            var prefix = Integer.parseInt(parts[1]);
-            if (prefix < 0 || prefix > 32) throw new IllegalArgumentException("Bad prefix: " + prefix);
-
-            var mask = (prefix == 0) ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
-            var start = dottedToLong(parts[0]) & mask;
-            var end = (start | (~mask & 0xFFFFFFFFL)) & 0xFFFFFFFFL;
-            return new long[]{start, end};
-        }
-
-        private static long dottedToLong(String dotted) {
-            var q = dotted.split("\\.");
-            if (q.length != 4) throw new IllegalArgumentException("Bad IPv4: " + dotted);
-            var a = Integer.parseInt(q[0]) & 0xFFL;
-            var b = Integer.parseInt(q[1]) & 0xFFL;
-            var c = Integer.parseInt(q[2]) & 0xFFL;
-            var d = Integer.parseInt(q[3]) & 0xFFL;
-            return ((a << 24) | (b << 16) | (c << 8) | d) & 0xFFFFFFFFL;
-        }
-
-        /**
-         * Merge overlapping/adjacent intervals; input intervals may be unsorted.
-         */
-        private static List<long[]> mergeIntervals(List<long[]> intervals) {
-            if (intervals.isEmpty()) return List.of();
-            var list = new ArrayList<>(intervals);
-            var out = new ArrayList<long[]>();
-            var curStart = list.getFirst()[0];
-            var curEnd = list.getFirst()[1];
-            for (int i = 1; i < list.size(); i++) {
-                long s = list.get(i)[0], e = list.get(i)[1];
-                if (s <= curEnd + 1) {
-                    // overlap or adjacent -> extend
-                    curEnd = Math.max(curEnd, e);
-                } else {
-                    out.add(new long[]{curStart, curEnd});
-                    curStart = s;
-                    curEnd = e;
-                }
-            }
-            out.add(new long[]{curStart, curEnd});
-            return out;
-        }
-
         private static List<long[]> buildAllowedFromReserved(List<long[]> reserved) {
             var allowed = new ArrayList<long[]>();
             var fullStart = 0L;
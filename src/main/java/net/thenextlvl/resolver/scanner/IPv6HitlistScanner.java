@@ -0,0 +1,421 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.util.OffHeapLongPairSet;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The IPv6HitlistScanner class scans the IPv6 addresses listed in a hitlist file.
+ * <p>
+ * Since the IPv6 address space cannot be swept exhaustively, the targets are streamed from a hitlist
+ * instead of being enumerated. Every address is parsed straight into a pair of longs and deduplicated
+ * with an {@link OffHeapLongPairSet}, so even hitlists with hundreds of millions of entries
+ * only occupy a few objects on the heap.
+ * <p>
+ * Unique addresses are handed to a fixed pool of ping threads as they are read. Reading blocks while
+ * every thread is busy, so the hitlist is streamed at the rate the targets are pinged and never
+ * more than one address per thread is buffered.
+ */
+@NullMarked
+public class IPv6HitlistScanner {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final Path hitlist;
+    private final Format format;
+    private final PingOptions template;
+    private final int concurrency;
+    private final long expectedSize;
+
+    private long duplicates;
+    private long malformed;
+
+    /**
+     * Constructs a new IPv6HitlistScanner.
+     *
+     * @param hitlist  the file containing the addresses to scan
+     * @param format   the format of the hitlist file
+     * @param template the options every address is pinged with, including the port to ping
+     */
+    public IPv6HitlistScanner(Path hitlist, Format format, PingOptions template) {
+        this(hitlist, format, template, 256, 1 << 20);
+    }
+
+    private IPv6HitlistScanner(Path hitlist, Format format, PingOptions template, int concurrency, long expectedSize) {
+        this.hitlist = hitlist;
+        this.format = format;
+        this.template = template;
+        this.concurrency = concurrency;
+        this.expectedSize = expectedSize;
+    }
+
+    /**
+     * Creates a builder for a scanner of the given hitlist.
+     *
+     * @param hitlist  the file containing the addresses to scan
+     * @param format   the format of the hitlist file
+     * @param template the options every address is pinged with, including the port to ping
+     * @return the new builder
+     */
+    public static Builder builder(Path hitlist, Format format, PingOptions template) {
+        return new Builder(hitlist, format, template);
+    }
+
+    /**
+     * Streams the hitlist and pings every unique address in it.
+     * The success and exception callbacks are used to handle the results of each ping operation.
+     *
+     * @param success   a callback function that is invoked with the ServerPing result upon a successful ping
+     * @param exception a callback function that is invoked with the PingOptions and IOException if a ping fails
+     * @throws IOException          if the hitlist cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting for the pings to complete
+     */
+    public void startScan(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) throws IOException, InterruptedException {
+        startScan(success, exception, ScanLimits.none());
+    }
+
+    /**
+     * Streams the hitlist and pings every unique address in it, until the scan is stopped by the given limits.
+     *
+     * @param success   a callback function that is invoked with the ServerPing result upon a successful ping
+     * @param exception a callback function that is invoked with the PingOptions and IOException if a ping fails
+     * @param limits    the deadline and stop condition of the scan
+     * @return true if the whole hitlist was scanned, false if the scan was stopped early
+     * @throws IOException          if the hitlist cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting for the pings to complete
+     */
+    public boolean startScan(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception, ScanLimits limits) throws IOException, InterruptedException {
+        var latch = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("Hitlist Ping #", 0).daemon().factory());
+        var handle = new ScanHandle(latch, pool, limits);
+        var permits = new Semaphore(concurrency);
+        var address = new long[2];
+
+        try (var seen = new OffHeapLongPairSet(expectedSize);
+             var input = Files.newInputStream(hitlist)) {
+            var reader = format == Format.BINARY ? new BinaryReader(input) : new TextReader(input);
+            while (!handle.isCancelled() && reader.next(address)) {
+                if (!seen.add(address[0], address[1])) {
+                    duplicates++;
+                    continue;
+                }
+                var options = template.toBuilder()
+                        .address(new InetSocketAddress(toInetAddress(address[0], address[1]), template.getAddress().getPort()))
+                        .build();
+                permits.acquire();
+                pool.execute(() -> {
+                    try {
+                        probe(options, handle, success, exception);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            malformed = reader.malformed();
+        } catch (InterruptedException e) {
+            handle.cancel();
+            throw e;
+        } finally {
+            permits.acquireUninterruptibly(concurrency);
+            latch.countDown();
+            handle.complete();
+        }
+        return !handle.isCancelled();
+    }
+
+    /**
+     * Returns the number of hitlist entries that were skipped because they were listed before.
+     *
+     * @return the number of duplicate entries
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the number of hitlist entries that were skipped because they could not be parsed.
+     *
+     * @return the number of malformed entries
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    private static void probe(PingOptions options, ScanHandle handle, Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+        if (handle.isCancelled()) return;
+        try {
+            var ping = Ping.ping(options, handle.token());
+            success.accept(ping);
+            handle.test(ping);
+        } catch (IOException e) {
+            if (!handle.isCancelled()) exception.accept(options, e);
+        } catch (RuntimeException e) {
+            var malformed = new ProtocolException("Malformed status response: " + e.getMessage());
+            malformed.initCause(e);
+            exception.accept(options, malformed);
+        }
+    }
+
+    private static InetAddress toInetAddress(long high, long low) throws UnknownHostException {
+        var bytes = new byte[16];
+        for (var i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - i * 8));
+            bytes[i + 8] = (byte) (low >>> (56 - i * 8));
+        }
+        return InetAddress.getByAddress(bytes);
+    }
+
+    /**
+     * Parses the textual representation of an IPv6 address into two longs.
+     * Compressed notation ({@code ::}) and an embedded dotted IPv4 tail are supported.
+     * Zone ids ({@code %eth0}) are rejected, since they only scope link-local addresses to a host.
+     *
+     * @param chars the characters to parse
+     * @param from  the index of the first character, inclusive
+     * @param to    the index of the last character, exclusive
+     * @param out   the array receiving the most significant and least significant 64 bits
+     * @return true if the characters formed a valid address
+     */
+    static boolean parseIPv6(byte[] chars, int from, int to, long[] out) {
+        var groups = new int[8];
+        var count = 0;
+        var compressed = -1;
+        var index = from;
+
+        if (to - from >= 2 && chars[index] == ':' && chars[index + 1] == ':') {
+            compressed = 0;
+            index += 2;
+        }
+
+        while (index < to) {
+            if (count == 8) return false;
+            var start = index;
+            var value = 0;
+            while (index < to && index - start < 4) {
+                var digit = Character.digit(chars[index], 16);
+                if (digit < 0) break;
+                value = value << 4 | digit;
+                index++;
+            }
+
+            if (index < to && chars[index] == '.') {
+                if (count > 6) return false;
+                var ipv4 = parseIPv4(chars, start, to);
+                if (ipv4 < 0) return false;
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xFFFF);
+                index = to;
+                break;
+            }
+
+            if (index == start) return false;
+            groups[count++] = value;
+            if (index == to) break;
+            if (chars[index++] != ':') return false;
+            if (index < to && chars[index] == ':') {
+                if (compressed >= 0) return false;
+                compressed = count;
+                index++;
+            } else if (index == to) return false;
+        }
+
+        if (compressed >= 0) {
+            if (count == 8) return false;
+            var shift = 8 - count;
+            System.arraycopy(groups, compressed, groups, compressed + shift, count - compressed);
+            for (var i = compressed; i < compressed + shift; i++) groups[i] = 0;
+        } else if (count != 8) return false;
+
+        out[0] = (long) groups[0] << 48 | (long) groups[1] << 32 | (long) groups[2] << 16 | groups[3];
+        out[1] = (long) groups[4] << 48 | (long) groups[5] << 32 | (long) groups[6] << 16 | groups[7];
+        return true;
+    }
+
+    private static long parseIPv4(byte[] chars, int from, int to) {
+        var address = 0L;
+        var octets = 0;
+        var index = from;
+        while (octets < 4) {
+            var start = index;
+            var value = 0;
+            while (index < to && chars[index] >= '0' && chars[index] <= '9' && index - start < 3) {
+                value = value * 10 + chars[index++] - '0';
+            }
+            if (index == start || value > 255) return -1;
+            address = address << 8 | value;
+            if (++octets < 4 && (index >= to || chars[index++] != '.')) return -1;
+        }
+        return index == to ? address : -1;
+    }
+
+    /**
+     * The encoding of a hitlist file.
+     */
+    public enum Format {
+        /**
+         * One address in textual notation per line.
+         * Everything after a {@code #} is treated as a comment and blank lines are skipped.
+         */
+        TEXT,
+        /**
+         * A sequence of 16-byte addresses in network byte order without any separators.
+         */
+        BINARY
+    }
+
+    /**
+     * Reads the hitlist through a block buffer, so consuming a single byte costs no call into the stream.
+     */
+    private abstract static class HitlistReader {
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final InputStream input;
+        private int position;
+        private int limit;
+
+        private HitlistReader(InputStream input) {
+            this.input = input;
+        }
+
+        abstract boolean next(long[] address) throws IOException;
+
+        abstract long malformed();
+
+        /**
+         * Reads the next byte of the hitlist.
+         *
+         * @return the byte, or -1 at the end of the hitlist
+         */
+        final int read() throws IOException {
+            if (position == limit) {
+                limit = input.readNBytes(block, 0, block.length);
+                position = 0;
+                if (limit == 0) return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+    }
+
+    private static final class BinaryReader extends HitlistReader {
+        private long malformed;
+
+        private BinaryReader(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        boolean next(long[] address) throws IOException {
+            for (var i = 0; i < 16; i++) {
+                var read = read();
+                if (read == -1) {
+                    if (i > 0) malformed++;
+                    return false;
+                }
+                address[i >> 3] = i % 8 == 0 ? read : address[i >> 3] << 8 | read;
+            }
+            return true;
+        }
+
+        @Override
+        long malformed() {
+            return malformed;
+        }
+    }
+
+    private static final class TextReader extends HitlistReader {
+        private final byte[] line = new byte[128];
+        private long malformed;
+
+        private TextReader(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        boolean next(long[] address) throws IOException {
+            while (true) {
+                var length = 0;
+                var overflow = false;
+                int read;
+                while ((read = read()) != -1 && read != '\n') {
+                    if (length < line.length) line[length++] = (byte) read;
+                    else overflow = true;
+                }
+                if (read == -1 && length == 0) return false;
+
+                var end = 0;
+                while (end < length && line[end] != '#') end++;
+                if (end < length) overflow = false;
+                var start = 0;
+                while (start < end && Character.isWhitespace(line[start])) start++;
+                while (end > start && Character.isWhitespace(line[end - 1])) end--;
+                if (start == end && !overflow) continue;
+
+                if (!overflow && parseIPv6(line, start, end, address)) return true;
+                malformed++;
+            }
+        }
+
+        @Override
+        long malformed() {
+            return malformed;
+        }
+    }
+
+    public static class Builder {
+        private final Path hitlist;
+        private final Format format;
+        private final PingOptions template;
+        private int concurrency = 256;
+        private long expectedSize = 1 << 20;
+
+        private Builder(Path hitlist, Format format, PingOptions template) {
+            this.hitlist = hitlist;
+            this.format = format;
+            this.template = template;
+        }
+
+        /**
+         * Sets the number of addresses pinged concurrently.
+         *
+         * @param concurrency the number of ping threads
+         * @return this builder
+         */
+        public Builder concurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the number of unique addresses the duplicate filter is sized for initially.
+         * The filter grows past it as needed.
+         *
+         * @param expectedSize the expected number of unique addresses
+         * @return this builder
+         */
+        public Builder expectedSize(long expectedSize) {
+            this.expectedSize = expectedSize;
+            return this;
+        }
+
+        public IPv6HitlistScanner build() {
+            Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+            Preconditions.checkArgument(expectedSize >= 0, "expectedSize must not be negative");
+            return new IPv6HitlistScanner(hitlist, format, template, concurrency, expectedSize);
+        }
+    }
+}
@@ -44,12 +44,35 @@ public class PortScanner {
      * @throws InterruptedException if the current thread is interrupted while waiting
      */
     public void startScan(Consumer<ServerPing> consumer) throws InterruptedException {
-        for (var amount = 0; amount < this.amount; amount++) {
-            if (amount % 100 == 0) Thread.sleep(50);
-            submitTest(pingOptions.getAddress().getPort() + amount, consumer);
+        var handle = start(consumer, ScanLimits.none());
+        try {
+            handle.await();
+        } catch (InterruptedException e) {
+            handle.cancel();
+            throw e;
         }
-        latch.await();
-        pool.shutdown();
+    }
+
+    /**
+     * Starts scanning a range of ports in the background and returns immediately.
+     * Ports are scanned the same way as by {@link #startScan(Consumer)},
+     * until every port was scanned or the scan is stopped by the given limits.
+     *
+     * @param consumer a {@link Consumer} to handle the {@link ServerPing} response for each scanned port
+     * @param limits   the deadline and stop condition of the scan
+     * @return the handle to await or cancel the scan
+     */
+    public ScanHandle start(Consumer<ServerPing> consumer, ScanLimits limits) {
+        var handle = new ScanHandle(latch, pool, limits);
+        Thread.ofPlatform().name("Port Scanner").daemon().start(() -> {
+            for (var amount = 0; amount < this.amount; amount++) {
+                if (amount % 100 == 0) handle.pause(50);
+                if (handle.isCancelled()) latch.countDown();
+                else submitTest(pingOptions.getAddress().getPort() + amount, handle, consumer);
+            }
+            handle.complete();
+        });
+        return handle;
     }
 
     /**
@@ -57,14 +80,17 @@ public class PortScanner {
      * The task pings a specific port on the server and passes the result to the provided consumer.
      *
      * @param port     the port number to scan on the server
+     * @param handle   the handle of the scan the task belongs to
      * @param consumer a {@link Consumer} to handle the {@link ServerPing} response for the scanned port
      */
-    private void submitTest(int port, Consumer<ServerPing> consumer) {
+    private void submitTest(int port, ScanHandle handle, Consumer<ServerPing> consumer) {
         pool.submit(() -> {
             try {
-                consumer.accept(Ping.ping(pingOptions.toBuilder()
+                var ping = Ping.ping(pingOptions.toBuilder()
                         .address(new InetSocketAddress(pingOptions.getAddress().getAddress(), port))
-                        .build()));
+                        .build(), handle.token());
+                consumer.accept(ping);
+                handle.test(ping);
             } catch (IOException ignored) {
             } finally {
                 latch.countDown();
@@ -0,0 +1,267 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The RePingScheduler class continuously re-pings a fleet of known servers.
+ * <p>
+ * Targets are kept in a priority queue ordered by the time they become stale. A target with importance
+ * {@code n} is re-pinged every {@code freshness / n}, with a random jitter of up to 10% so that targets
+ * added together drift apart instead of arriving in bursts. A single dispatcher thread takes due targets
+ * off the queue no faster than the global probe budget allows, so the probe rate stays flat no matter
+ * how many targets become stale at once.
+ * <p>
+ * Every failed ping doubles the interval of a target up to the maximum backoff, and every successful ping
+ * halves it again. Unreachable hosts therefore back off quickly, while flapping hosts stay backed off
+ * instead of being reset by every successful ping. Malformed status responses count as failed pings
+ * and are reported to the exception callback as {@link ProtocolException}.
+ */
+@NullMarked
+public class RePingScheduler implements AutoCloseable {
+    private final DelayQueue<Target> queue = new DelayQueue<>();
+    private final Map<InetSocketAddress, Target> targets = new ConcurrentHashMap<>();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final Consumer<ServerPing> success;
+    private final BiConsumer<PingOptions, IOException> exception;
+    private final long freshness;
+    private final long maxBackoff;
+    private final long probeInterval;
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    private RePingScheduler(Builder builder, Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+        this.success = success;
+        this.exception = exception;
+        this.freshness = builder.freshness.toNanos();
+        this.maxBackoff = builder.maxBackoff.toNanos();
+        this.probeInterval = TimeUnit.SECONDS.toNanos(1) / builder.probesPerSecond;
+        this.dispatcher = Thread.ofPlatform().name("Re-Ping Scheduler").daemon().unstarted(this::dispatch);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Adds a target with the default importance of 1.
+     *
+     * @param options the options to ping the target with
+     * @see #add(PingOptions, int)
+     */
+    public void add(PingOptions options) {
+        add(options, 1);
+    }
+
+    /**
+     * Adds a target, replacing any target with the same address.
+     * The first ping of the target is spread randomly across its interval.
+     *
+     * @param options    the options to ping the target with
+     * @param importance how many times per freshness window the target is pinged
+     */
+    public void add(PingOptions options, int importance) {
+        Preconditions.checkArgument(importance > 0, "importance must be positive");
+        var target = new Target(options, importance);
+        target.due = System.nanoTime() + ThreadLocalRandom.current().nextLong(Math.max(1, target.interval()));
+        var previous = targets.put(options.getAddress(), target);
+        if (previous != null) previous.removed = true;
+        queue.add(target);
+    }
+
+    /**
+     * Stops re-pinging the target with the given address.
+     *
+     * @param address the address of the target
+     * @return true if the target was scheduled
+     */
+    public boolean remove(InetSocketAddress address) {
+        var target = targets.remove(address);
+        if (target == null) return false;
+        target.removed = true;
+        queue.remove(target);
+        return true;
+    }
+
+    /**
+     * Returns the number of scheduled targets.
+     *
+     * @return the number of targets
+     */
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * Starts the dispatcher thread.
+     *
+     * @return this scheduler
+     */
+    public RePingScheduler start() {
+        dispatcher.start();
+        return this;
+    }
+
+    /**
+     * Stops scheduling new pings. Pings that are already in flight still report their results.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        pool.shutdown();
+    }
+
+    private void dispatch() {
+        var next = System.nanoTime();
+        while (running) {
+            try {
+                var target = queue.take();
+                if (target.removed) continue;
+
+                long now;
+                while ((now = System.nanoTime()) < next) LockSupport.parkNanos(this, next - now);
+                if (!running) return;
+                next = Math.max(next, now - probeInterval) + probeInterval;
+
+                pool.submit(() -> probe(target));
+            } catch (InterruptedException | RejectedExecutionException e) {
+                // the pool only rejects once close() shut it down
+                return;
+            }
+        }
+    }
+
+    private void probe(Target target) {
+        try {
+            success.accept(Ping.ping(target.options));
+            target.backoff = Math.max(0, target.backoff - 1);
+        } catch (IOException e) {
+            exception.accept(target.options, e);
+            target.backoff = Math.min(62, target.backoff + 1);
+        } catch (RuntimeException e) {
+            exception.accept(target.options, malformed(e));
+            target.backoff = Math.min(62, target.backoff + 1);
+        } finally {
+            var interval = target.interval();
+            var jitter = ThreadLocalRandom.current().nextLong(interval / 10 + 1);
+            target.due = System.nanoTime() + interval + jitter;
+            if (running && !target.removed) queue.add(target);
+        }
+    }
+
+    private static ProtocolException malformed(RuntimeException cause) {
+        var exception = new ProtocolException("Malformed status response: " + cause.getMessage());
+        exception.initCause(cause);
+        return exception;
+    }
+
+    public static class Builder {
+        private Duration freshness = Duration.ofMinutes(5);
+        private Duration maxBackoff = Duration.ofHours(6);
+        private int probesPerSecond = 100;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the interval in which every target with importance 1 is re-pinged.
+         *
+         * @param freshness the freshness window
+         * @return this builder
+         */
+        public Builder freshness(Duration freshness) {
+            this.freshness = freshness;
+            return this;
+        }
+
+        /**
+         * Sets the longest interval a failing target is backed off to.
+         * It must not be shorter than the freshness window.
+         *
+         * @param maxBackoff the maximum interval
+         * @return this builder
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Sets the global budget of pings started per second.
+         *
+         * @param probesPerSecond the probe rate
+         * @return this builder
+         */
+        public Builder probesPerSecond(int probesPerSecond) {
+            this.probesPerSecond = probesPerSecond;
+            return this;
+        }
+
+        /**
+         * Creates the scheduler. It does not ping anything before {@link #start()} is called.
+         *
+         * @param success   a callback function that is invoked with the ServerPing result upon a successful ping
+         * @param exception a callback function that is invoked with the PingOptions and IOException if a ping fails
+         * @return the new scheduler
+         */
+        public RePingScheduler build(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+            Preconditions.checkArgument(probesPerSecond > 0, "probesPerSecond must be positive");
+            Preconditions.checkArgument(!freshness.isNegative() && !freshness.isZero(), "freshness must be positive");
+            Preconditions.checkArgument(maxBackoff.compareTo(freshness) >= 0, "maxBackoff must not be shorter than freshness");
+            return new RePingScheduler(this, success, exception);
+        }
+    }
+
+    private final class Target implements Delayed {
+        private final PingOptions options;
+        private final int importance;
+
+        private volatile boolean removed;
+        private volatile long due;
+        private int backoff;
+
+        private Target(PingOptions options, int importance) {
+            this.options = options;
+            this.importance = importance;
+        }
+
+        private long interval() {
+            var interval = freshness / importance;
+            if (backoff == 0) return interval;
+            if (interval > maxBackoff >> backoff) return Math.max(interval, maxBackoff);
+            return Math.max(interval, Math.min(maxBackoff, interval << backoff));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(due, ((Target) other).due);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.thenextlvl.resolver.CancellationToken;
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.util.HashedWheelTimer;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A handle to a running scan.
+ * <p>
+ * The scan is cancelled when {@link #cancel()} is called, when the deadline of its {@link ScanLimits}
+ * passes, or when its stop condition matches a result. Cancelling aborts every ping in flight by
+ * closing its socket and skips all targets that were not pinged yet, so the scan completes promptly.
+ * Pings aborted by a cancellation are not reported to the exception callback.
+ */
+@NullMarked
+public final class ScanHandle {
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("Scan Deadline Timer", 100, TimeUnit.MILLISECONDS, 512);
+
+    private final CancellationToken token = new CancellationToken();
+    private final CountDownLatch latch;
+    private final ExecutorService pool;
+    private final Predicate<ServerPing> stopWhen;
+    private final HashedWheelTimer.@Nullable Timeout deadline;
+
+    ScanHandle(CountDownLatch latch, ExecutorService pool, ScanLimits limits) {
+        this.latch = latch;
+        this.pool = pool;
+        this.stopWhen = limits.getStopWhen();
+        var deadline = limits.getDeadline();
+        this.deadline = deadline != null ? TIMER.schedule(this::cancel, deadline.toMillis(), TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Waits until every target was pinged or skipped due to cancellation.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        latch.await();
+    }
+
+    /**
+     * Waits until every target was pinged or skipped, or the given time elapsed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the scan completed, false if the time elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return latch.await(timeout, unit);
+    }
+
+    /**
+     * Cancels the scan, aborting all pings in flight.
+     */
+    public void cancel() {
+        token.cancel();
+    }
+
+    public boolean isCancelled() {
+        return token.isCancelled();
+    }
+
+    public boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    CancellationToken token() {
+        return token;
+    }
+
+    /**
+     * Tests a result against the stop condition and cancels the scan if it matches.
+     *
+     * @param ping the result to test
+     */
+    void test(ServerPing ping) {
+        if (!isCancelled() && stopWhen.test(ping)) cancel();
+    }
+
+    /**
+     * Pauses the submission of targets, cancelling the scan if the submitting thread is interrupted.
+     *
+     * @param millis the time to pause in milliseconds
+     */
+    void pause(long millis) {
+        if (isCancelled()) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for all submitted tasks to complete and releases the resources of the scan.
+     * Must be called by the submitting thread after every target was either submitted or skipped.
+     */
+    void complete() {
+        pool.shutdown();
+        Uninterruptibles.awaitUninterruptibly(latch);
+        if (deadline != null) deadline.cancel();
+    }
+}
@@ -0,0 +1,112 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Represents the conditions under which a scan is stopped early.
+ * <p>
+ * Instances of this class are immutable and can be created using the builder pattern.
+ * <p>
+ * Fields:<br>
+ * - deadline: The time after which the scan is cancelled, or null for none. Defaults to null.<br>
+ * - stopWhen: A predicate tested against every result that cancels the scan once it matches. Defaults to never.
+ * <p>
+ * Every scan gets its own stop condition from {@link #getStopWhen()}, so limits built with
+ * {@link Builder#stopAfter(int, Predicate)} can be reused without carrying the count over.
+ */
+@NullMarked
+public class ScanLimits {
+    private static final ScanLimits NONE = builder().build();
+
+    private final @Nullable Duration deadline;
+    private final Supplier<Predicate<ServerPing>> stopWhen;
+
+    private ScanLimits(@Nullable Duration deadline, Supplier<Predicate<ServerPing>> stopWhen) {
+        this.deadline = deadline;
+        this.stopWhen = stopWhen;
+    }
+
+    public @Nullable Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns the stop condition for a new scan. Stateful conditions start from scratch on every call.
+     *
+     * @return the stop condition
+     */
+    public Predicate<ServerPing> getStopWhen() {
+        return stopWhen.get();
+    }
+
+    public Builder toBuilder() {
+        var builder = new Builder().deadline(deadline);
+        builder.stopWhen = stopWhen;
+        return builder;
+    }
+
+    /**
+     * Returns limits that never stop a scan early.
+     *
+     * @return the limits without deadline and stop condition
+     */
+    public static ScanLimits none() {
+        return NONE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private @Nullable Duration deadline = null;
+        private Supplier<Predicate<ServerPing>> stopWhen = () -> ping -> false;
+
+        private Builder() {
+        }
+
+        public Builder deadline(@Nullable Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * Sets the predicate that stops the scan as soon as it matches a result.
+         * The predicate is called concurrently from the scanning threads.
+         *
+         * @param stopWhen the stop condition
+         * @return this builder
+         */
+        public Builder stopWhen(Predicate<ServerPing> stopWhen) {
+            this.stopWhen = () -> stopWhen;
+            return this;
+        }
+
+        /**
+         * Stops the scan once the given number of results matched the filter.
+         * The results are counted separately for every scan the limits are used for.
+         *
+         * @param count  the number of matching results to stop after
+         * @param filter the filter results are counted by
+         * @return this builder
+         */
+        public Builder stopAfter(int count, Predicate<ServerPing> filter) {
+            this.stopWhen = () -> {
+                var matches = new AtomicInteger();
+                return ping -> filter.test(ping) && matches.incrementAndGet() >= count;
+            };
+            return this;
+        }
+
+        public ScanLimits build() {
+            return new ScanLimits(deadline, stopWhen);
+        }
+    }
+}
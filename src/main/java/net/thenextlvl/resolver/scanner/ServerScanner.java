@@ -45,28 +45,55 @@ public class ServerScanner {
      * @throws InterruptedException if the thread is interrupted while waiting for all tasks to complete
      */
     public void startScan(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) throws InterruptedException {
-        var amount = options.size();
-        for (int index = 0; index < amount; index++) {
-            if (index % 100 == 0) Thread.sleep(50);
-            submitTest(options.get(index), success, exception);
+        var handle = start(success, exception, ScanLimits.none());
+        try {
+            handle.await();
+        } catch (InterruptedException e) {
+            handle.cancel();
+            throw e;
         }
-        latch.await();
-        pool.shutdown();
+    }
+
+    /**
+     * Initiates the scanning of servers in the background and returns immediately.
+     * Servers are pinged the same way as by {@link #startScan(Consumer, BiConsumer)},
+     * until every server was pinged or the scan is stopped by the given limits.
+     *
+     * @param success   a callback function that is invoked with the ServerPing result upon a successful ping
+     * @param exception a callback function that is invoked with the PingOptions and IOException if a ping fails
+     * @param limits    the deadline and stop condition of the scan
+     * @return the handle to await or cancel the scan
+     */
+    public ScanHandle start(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception, ScanLimits limits) {
+        var handle = new ScanHandle(latch, pool, limits);
+        Thread.ofPlatform().name("Server Scanner").daemon().start(() -> {
+            var amount = options.size();
+            for (int index = 0; index < amount; index++) {
+                if (index % 100 == 0) handle.pause(50);
+                if (handle.isCancelled()) latch.countDown();
+                else submitTest(options.get(index), handle, success, exception);
+            }
+            handle.complete();
+        });
+        return handle;
     }
 
     /**
      * Submits a ping task to the thread pool using the specified options and callbacks.
      *
      * @param options   the PingOptions to be used for the ping operation
+     * @param handle    the handle of the scan the task belongs to
      * @param consumer  a callback function to be invoked with the ServerPing result upon successful ping
      * @param exception a callback function to be invoked with the PingOptions and IOException if the ping fails
      */
-    private void submitTest(PingOptions options, Consumer<ServerPing> consumer, BiConsumer<PingOptions, IOException> exception) {
+    private void submitTest(PingOptions options, ScanHandle handle, Consumer<ServerPing> consumer, BiConsumer<PingOptions, IOException> exception) {
         pool.submit(() -> {
             try {
-                consumer.accept(Ping.ping(options));
+                var ping = Ping.ping(options, handle.token());
+                consumer.accept(ping);
+                handle.test(ping);
             } catch (IOException e) {
-                exception.accept(options, e);
+                if (!handle.isCancelled()) exception.accept(options, e);
             } finally {
                 latch.countDown();
             }
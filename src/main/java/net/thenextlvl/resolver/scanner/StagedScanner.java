@@ -0,0 +1,328 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.AsnTable;
+import net.thenextlvl.resolver.CancellationToken;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.RawStatus;
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The StagedScanner class scans a list of servers in two separately sized stages.
+ * <p>
+ * The I/O stage only performs the network part of every ping, {@link Ping#exchange(PingOptions, CancellationToken)},
+ * and hands the raw status response over to a bounded queue. The decode stage, sized to the number of cores by default,
+ * takes the raw responses off the queue, decodes them with {@link Ping#decode(RawStatus)} and invokes the callbacks.
+ * JSON parsing, mapping and whatever the callbacks do, like {@link net.thenextlvl.resolver.ServerType#guess(ServerPing)}
+ * or writing to a sink, therefore never delays socket I/O, and vice versa.
+ * <p>
+ * If the decode stage falls behind, the queue fills up and the I/O stage blocks until there is room again.
+ * The counters of both stages tell which one saturates first: a full queue and a growing handoff wait time
+ * mean that more decode threads are needed, while an empty queue with idle decode threads means that the
+ * I/O stage is the bottleneck.
+ * <p>
+ * Failed exchanges are handed over through the same queue, so both callbacks only ever run on the decode threads.
+ * Malformed status responses are reported to the exception callback as {@link ProtocolException}.
+ * If the scanner was built with an {@link AsnTable}, the decode stage also tags every result with its
+ * autonomous system before invoking the success callback.
+ */
+@NullMarked
+public final class StagedScanner {
+    private final CancellationToken token = new CancellationToken();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger ioActive = new AtomicInteger();
+    private final AtomicInteger decodeActive = new AtomicInteger();
+    private final AtomicLong exchanged = new AtomicLong();
+    private final AtomicLong decoded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong handoffWait = new AtomicLong();
+
+    private final BlockingQueue<Outcome> handoff;
+    private final List<PingOptions> options;
+    private final @Nullable AsnTable asnTable;
+    private final int ioThreads;
+    private final int decodeThreads;
+
+    private volatile boolean exchanging = true;
+
+    private StagedScanner(Builder builder, List<PingOptions> options) {
+        this.handoff = new ArrayBlockingQueue<>(builder.handoffCapacity);
+        this.ioThreads = builder.ioThreads;
+        this.decodeThreads = builder.decodeThreads;
+        this.options = options;
+        this.asnTable = builder.asnTable;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Scans every server and waits until all of them were pinged and decoded.
+     * The callbacks are invoked concurrently from the decode threads. An exception thrown by a callback
+     * is passed to the uncaught exception handler of its decode thread, which then goes on decoding.
+     *
+     * @param success   a callback function that is invoked with the ServerPing result upon a successful ping
+     * @param exception a callback function that is invoked with the PingOptions and IOException if a ping fails
+     * @throws InterruptedException if the thread is interrupted while waiting, which cancels the scan
+     */
+    public void startScan(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) throws InterruptedException {
+        var decoders = new ArrayList<Thread>(decodeThreads);
+        for (var i = 0; i < decodeThreads; i++) {
+            decoders.add(Thread.ofPlatform().name("Ping Decode #" + i).daemon().start(() -> decode(success, exception)));
+        }
+        var exchangers = new ArrayList<Thread>(ioThreads);
+        for (var i = 0; i < ioThreads; i++) {
+            exchangers.add(Thread.ofPlatform().name("Ping I/O #" + i).daemon().start(this::exchange));
+        }
+
+        try {
+            for (var thread : exchangers) thread.join();
+            exchanging = false;
+            for (var thread : decoders) thread.join();
+        } catch (InterruptedException e) {
+            token.cancel();
+            exchanging = false;
+            exchangers.forEach(Thread::interrupt);
+            decoders.forEach(Thread::interrupt);
+            throw e;
+        }
+    }
+
+    private void exchange() {
+        for (int index; (index = next.getAndIncrement()) < options.size() && !token.isCancelled(); ) {
+            var target = options.get(index);
+            Outcome outcome;
+            ioActive.incrementAndGet();
+            try {
+                outcome = new Outcome(target, Ping.exchange(target, token), null);
+                exchanged.incrementAndGet();
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                if (token.isCancelled()) continue;
+                outcome = new Outcome(target, null, e);
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                outcome = new Outcome(target, null, malformed(e));
+            } finally {
+                ioActive.decrementAndGet();
+            }
+
+            try {
+                if (!handoff.offer(outcome)) {
+                    var start = System.nanoTime();
+                    handoff.put(outcome);
+                    handoffWait.addAndGet(System.nanoTime() - start);
+                }
+            } catch (InterruptedException e) {
+                outcome.close();
+                return;
+            }
+        }
+    }
+
+    private void decode(Consumer<ServerPing> success, BiConsumer<PingOptions, IOException> exception) {
+        try {
+            while (exchanging || !handoff.isEmpty()) {
+                var outcome = handoff.poll(50, TimeUnit.MILLISECONDS);
+                if (outcome == null) continue;
+                decodeActive.incrementAndGet();
+                try (outcome) {
+                    var status = outcome.status();
+                    if (status == null) {
+                        var failure = outcome.exception();
+                        if (failure != null) exception.accept(outcome.options(), failure);
+                        continue;
+                    }
+                    ServerPing ping;
+                    try {
+                        ping = Ping.decode(status);
+                        decoded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        exception.accept(status.getOptions(), malformed(e));
+                        continue;
+                    }
+                    if (asnTable != null) asnTable.tag(ping);
+                    success.accept(ping);
+                } catch (RuntimeException e) {
+                    // a failing callback must not kill the decoder, or the I/O threads block on the full handoff queue
+                    var thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                } finally {
+                    decodeActive.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException ignored) {
+            for (Outcome outcome; (outcome = handoff.poll()) != null; ) outcome.close();
+        }
+    }
+
+    private static ProtocolException malformed(RuntimeException cause) {
+        var exception = new ProtocolException("Malformed status response: " + cause.getMessage());
+        exception.initCause(cause);
+        return exception;
+    }
+
+    /**
+     * Returns the number of raw status responses and failed exchanges waiting for the decode stage.
+     *
+     * @return the current size of the handoff queue
+     */
+    public int getQueued() {
+        return handoff.size();
+    }
+
+    /**
+     * Returns the number of I/O threads that are currently pinging a server,
+     * as opposed to waiting for room in the handoff queue.
+     *
+     * @return the number of busy I/O threads
+     */
+    public int getIoActive() {
+        return ioActive.get();
+    }
+
+    /**
+     * Returns the number of decode threads that are currently decoding a response or running the callbacks.
+     *
+     * @return the number of busy decode threads
+     */
+    public int getDecodeActive() {
+        return decodeActive.get();
+    }
+
+    /**
+     * Returns the number of raw status responses the I/O stage has read so far.
+     *
+     * @return the number of exchanged responses
+     */
+    public long getExchanged() {
+        return exchanged.get();
+    }
+
+    /**
+     * Returns the number of responses the decode stage has decoded so far.
+     *
+     * @return the number of decoded responses
+     */
+    public long getDecoded() {
+        return decoded.get();
+    }
+
+    /**
+     * Returns the number of pings that failed in either stage so far.
+     *
+     * @return the number of failed pings
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the total time the I/O threads spent waiting for room in the full handoff queue.
+     *
+     * @return the handoff wait time in nanoseconds
+     */
+    public long getHandoffWaitNanos() {
+        return handoffWait.get();
+    }
+
+    /**
+     * The result of the I/O stage for a single server, handed over to the decode stage.
+     *
+     * @param options   the options the server was pinged with
+     * @param status    the raw status response, or null if the exchange failed
+     * @param exception the failure, or null if the exchange succeeded
+     */
+    private record Outcome(PingOptions options, @Nullable RawStatus status, @Nullable IOException exception) implements AutoCloseable {
+        @Override
+        public void close() {
+            if (status != null) status.close();
+        }
+    }
+
+    public static class Builder {
+        private int ioThreads = 512;
+        private int decodeThreads = Runtime.getRuntime().availableProcessors();
+        private int handoffCapacity = 4096;
+        private @Nullable AsnTable asnTable;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of threads pinging servers concurrently.
+         *
+         * @param ioThreads the size of the I/O stage
+         * @return this builder
+         */
+        public Builder ioThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads decoding responses and running the callbacks.
+         *
+         * @param decodeThreads the size of the decode stage
+         * @return this builder
+         */
+        public Builder decodeThreads(int decodeThreads) {
+            this.decodeThreads = decodeThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of raw status responses and failed exchanges that may wait for the decode stage
+         * before the I/O stage blocks.
+         *
+         * @param handoffCapacity the capacity of the handoff queue
+         * @return this builder
+         */
+        public Builder handoffCapacity(int handoffCapacity) {
+            this.handoffCapacity = handoffCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the table the decode stage tags every result with, or disables tagging.
+         *
+         * @param asnTable the prefix table, or null to not tag results
+         * @return this builder
+         */
+        public Builder asnTable(@Nullable AsnTable asnTable) {
+            this.asnTable = asnTable;
+            return this;
+        }
+
+        /**
+         * Creates a scanner for the given servers.
+         *
+         * @param options the list of PingOptions to be used for the server scan
+         * @return the new scanner
+         */
+        public StagedScanner build(List<PingOptions> options) {
+            Preconditions.checkArgument(ioThreads > 0, "ioThreads must be positive");
+            Preconditions.checkArgument(decodeThreads > 0, "decodeThreads must be positive");
+            Preconditions.checkArgument(handoffCapacity > 0, "handoffCapacity must be positive");
+            return new StagedScanner(this, options);
+        }
+    }
+}
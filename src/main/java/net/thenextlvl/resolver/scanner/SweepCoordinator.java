@@ -0,0 +1,411 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.RawStatus;
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The SweepCoordinator class distributes a sweep of an IPv4 address space across any number of
+ * {@link SweepWorker} processes.
+ * <p>
+ * The address space, by default every public address as enumerated by {@link IPv4Scanner}, is split into
+ * chunks of a fixed size. Workers connect over TCP and request one chunk at a time, so fast workers simply
+ * request more chunks than slow ones and adding a worker speeds up the sweep almost linearly. Every chunk is
+ * leased to its worker, which renews the lease with heartbeats and results. Chunks of workers that disconnect
+ * are handed out again right away, and chunks whose lease expires, because their worker hangs, are handed
+ * out again on the next request. Only the worker currently holding the lease of a chunk can complete it.
+ * <p>
+ * Workers stream the raw status response of every server they find back to the coordinator, which decodes
+ * it and invokes the callback, concurrently from the connection threads. A chunk that was reassigned may
+ * have been partially swept by its previous worker as well, so a server can be reported more than once.
+ *
+ * @see SweepProtocol
+ */
+@NullMarked
+public final class SweepCoordinator implements AutoCloseable {
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicLong results = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private final Map<Integer, Lease> leases = new HashMap<>();
+    private final long[] first;
+    private final long[] last;
+    private final boolean[] done;
+    private int remaining;
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Consumer<ServerPing> success;
+    private final @Nullable PingOptions template;
+    private final long leaseTimeout;
+
+    private SweepCoordinator(Builder builder, ServerSocket server, Consumer<ServerPing> success) {
+        var chunks = chunk(builder.intervals, builder.chunkSize);
+        this.first = new long[chunks.size()];
+        this.last = new long[chunks.size()];
+        for (var i = 0; i < chunks.size(); i++) {
+            first[i] = chunks.get(i)[0];
+            last[i] = chunks.get(i)[1];
+            pending.add(i);
+        }
+        this.done = new boolean[chunks.size()];
+        this.remaining = chunks.size();
+        if (remaining == 0) finished.countDown();
+
+        this.server = server;
+        this.success = success;
+        this.template = builder.template;
+        this.leaseTimeout = builder.leaseTimeout.toMillis();
+        this.acceptor = new Thread(this::accept, "Sweep Coordinator");
+        this.acceptor.setDaemon(true);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts accepting workers.
+     *
+     * @return this coordinator
+     */
+    public SweepCoordinator start() {
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * Waits until every chunk was swept.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        finished.await();
+    }
+
+    /**
+     * Waits until every chunk was swept, or the given time elapsed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the sweep completed, false if the time elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /**
+     * Stops accepting workers and disconnects all connected ones.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        connections.forEach(SweepCoordinator::closeQuietly);
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    public int getTotalChunks() {
+        return first.length;
+    }
+
+    public synchronized int getCompletedChunks() {
+        return first.length - remaining;
+    }
+
+    /**
+     * Returns the number of workers that are currently connected.
+     *
+     * @return the number of connected workers
+     */
+    public int getWorkers() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of results received so far, including malformed ones.
+     *
+     * @return the number of results
+     */
+    public long getResults() {
+        return results.get();
+    }
+
+    /**
+     * Returns the number of results whose status response could not be decoded.
+     *
+     * @return the number of malformed results
+     */
+    public long getMalformed() {
+        return malformed.get();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                var socket = server.accept();
+                connections.add(socket);
+                Thread.ofPlatform().daemon()
+                        .name("Sweep Coordinator Worker #" + connectionIds.incrementAndGet())
+                        .start(() -> serve(socket));
+            } catch (IOException e) {
+                if (server.isClosed()) return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (input.readInt() != SweepProtocol.MAGIC || input.readInt() != SweepProtocol.VERSION)
+                throw new ProtocolException("Not a sweep worker of protocol version " + SweepProtocol.VERSION);
+
+            for (; ; ) {
+                var type = input.readByte();
+                switch (type) {
+                    case SweepProtocol.REQUEST -> {
+                        assign(socket, output);
+                        output.flush();
+                    }
+                    case SweepProtocol.HEARTBEAT -> renew(socket, input.readInt());
+                    case SweepProtocol.RESULT -> receive(socket, input);
+                    case SweepProtocol.COMPLETE -> complete(socket, input.readInt());
+                    default -> throw new ProtocolException("Unknown message type " + type);
+                }
+            }
+        } catch (IOException ignored) {
+        } finally {
+            connections.remove(socket);
+            release(socket);
+        }
+    }
+
+    /**
+     * Leases the next chunk to the given worker, reclaiming expired leases first.
+     */
+    private synchronized void assign(Socket worker, DataOutputStream output) throws IOException {
+        var now = System.currentTimeMillis();
+        leases.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiry > now) return false;
+            pending.addFirst(entry.getKey());
+            return true;
+        });
+
+        var chunk = pending.poll();
+        if (chunk != null) {
+            leases.put(chunk, new Lease(worker, now + leaseTimeout));
+            output.writeByte(SweepProtocol.CHUNK);
+            output.writeInt(chunk);
+            output.writeLong(first[chunk]);
+            output.writeLong(last[chunk]);
+            output.writeInt((int) Math.min(Integer.MAX_VALUE, leaseTimeout));
+        } else if (remaining > 0) {
+            output.writeByte(SweepProtocol.RETRY);
+            output.writeInt((int) Math.min(1000, leaseTimeout));
+        } else {
+            output.writeByte(SweepProtocol.DONE);
+        }
+    }
+
+    private synchronized void renew(Socket worker, int chunk) {
+        var lease = leases.get(chunk);
+        if (lease != null && lease.worker == worker) lease.expiry = System.currentTimeMillis() + leaseTimeout;
+    }
+
+    /**
+     * Marks the given chunk as swept if the given worker holds its lease. A chunk is accepted as complete even
+     * if its lease expired meanwhile, since the work was done nonetheless, but not once the chunk was handed out
+     * again, in which case only its new worker can complete it.
+     */
+    private synchronized void complete(Socket worker, int chunk) throws ProtocolException {
+        if (chunk < 0 || chunk >= done.length) throw new ProtocolException("Unknown chunk " + chunk);
+        var lease = leases.get(chunk);
+        if (done[chunk] || lease == null || lease.worker != worker) return;
+        done[chunk] = true;
+        leases.remove(chunk);
+        if (--remaining == 0) finished.countDown();
+    }
+
+    /**
+     * Hands the chunk of a disconnected worker out again.
+     */
+    private synchronized void release(Socket worker) {
+        leases.entrySet().removeIf(entry -> {
+            if (entry.getValue().worker != worker) return false;
+            pending.addFirst(entry.getKey());
+            return true;
+        });
+    }
+
+    private void receive(Socket worker, DataInputStream input) throws IOException {
+        var chunk = input.readInt();
+        var address = input.readInt();
+        var port = input.readUnsignedShort();
+        var ping = input.readLong();
+        var length = input.readInt();
+        if (length < 0 || length > 1 << 24) throw new ProtocolException("Bad result length " + length);
+        var data = new byte[length];
+        input.readFully(data);
+
+        renew(worker, chunk);
+        results.incrementAndGet();
+
+        var ip = SweepProtocol.toInetAddress(address);
+        var target = new InetSocketAddress(ip, port);
+        var options = template != null ? template.toBuilder().address(target).build() : PingOptions.builder(target).build();
+        ServerPing result;
+        try {
+            result = Ping.decode(RawStatus.of(options, data, ping));
+        } catch (RuntimeException e) {
+            malformed.incrementAndGet();
+            return;
+        }
+        success.accept(result);
+    }
+
+    /**
+     * Splits the given intervals into chunks of at most the given size that never span two intervals.
+     */
+    private static List<long[]> chunk(List<long[]> intervals, int chunkSize) {
+        var chunks = new ArrayList<long[]>();
+        for (var interval : intervals) {
+            for (var start = interval[0]; start <= interval[1]; start += chunkSize) {
+                chunks.add(new long[]{start, Math.min(interval[1], start + chunkSize - 1)});
+            }
+        }
+        return chunks;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public static class Builder {
+        private List<long[]> intervals = IPv4Scanner.PublicIpv4Iterator.getAllowedIntervals();
+        private int chunkSize = 1 << 16;
+        private Duration leaseTimeout = Duration.ofMinutes(1);
+        private @Nullable PingOptions template = null;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the address space to sweep.
+         *
+         * @param intervals the inclusive ranges of addresses, as unsigned 32-bit values
+         * @return this builder
+         */
+        public Builder intervals(List<long[]> intervals) {
+            this.intervals = intervals;
+            return this;
+        }
+
+        /**
+         * Sets the number of addresses handed out to a worker at once.
+         *
+         * @param chunkSize the chunk size
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets the time after which the chunk of a worker that neither sent a heartbeat nor a result
+         * is handed out to another worker.
+         *
+         * @param leaseTimeout the lease timeout
+         * @return this builder
+         */
+        public Builder leaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = leaseTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the options received status responses are decoded with, for example to move favicons to a store.
+         *
+         * @param template the options whose address is replaced by the address of each result, or null for the defaults
+         * @return this builder
+         */
+        public Builder template(@Nullable PingOptions template) {
+            this.template = template;
+            return this;
+        }
+
+        /**
+         * Binds the coordinator to the given address. It does not accept workers before {@link #start()} is called.
+         *
+         * @param address the address workers connect to
+         * @param success a callback function that is invoked with the ServerPing of every server found by a worker
+         * @return the new coordinator
+         * @throws IOException if the address cannot be bound
+         */
+        public SweepCoordinator build(InetSocketAddress address, Consumer<ServerPing> success) throws IOException {
+            Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+            Preconditions.checkArgument(leaseTimeout.toMillis() > 0, "leaseTimeout must be positive");
+            var server = new ServerSocket();
+            try {
+                server.bind(address);
+            } catch (IOException e) {
+                server.close();
+                throw e;
+            }
+            return new SweepCoordinator(this, server, success);
+        }
+    }
+
+    /**
+     * The lease of a chunk, held by a worker until it expires.
+     */
+    private static final class Lease {
+        private final Socket worker;
+        private long expiry;
+
+        private Lease(Socket worker, long expiry) {
+            this.worker = worker;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.thenextlvl.resolver.scanner;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * The message types exchanged between a {@link SweepCoordinator} and its {@link SweepWorker}s.
+ * <p>
+ * A worker opens its connection with {@link #MAGIC} and {@link #VERSION}, each as an int. After that,
+ * every message starts with its type as a single byte, followed by its fields in network byte order:
+ * <pre>
+ * worker to coordinator:
+ *   REQUEST
+ *   HEARTBEAT  int chunk
+ *   RESULT     int chunk, int address, short port, long ping, int length, byte[length] status
+ *   COMPLETE   int chunk
+ * coordinator to worker:
+ *   CHUNK      int chunk, long first, long last, int leaseMillis
+ *   RETRY      int delayMillis
+ *   DONE
+ * </pre>
+ * A worker holds at most one chunk at a time and sends a heartbeat at least three times per lease.
+ */
+@NullMarked
+final class SweepProtocol {
+    static final int MAGIC = 0x4D435357; // "MCSW"
+    static final int VERSION = 1;
+
+    static final byte REQUEST = 0x01;
+    static final byte HEARTBEAT = 0x02;
+    static final byte RESULT = 0x03;
+    static final byte COMPLETE = 0x04;
+
+    static final byte CHUNK = 0x11;
+    static final byte RETRY = 0x12;
+    static final byte DONE = 0x13;
+
+    private SweepProtocol() {
+    }
+
+    /**
+     * Converts an IPv4 address to an InetAddress whose host name is its dotted form,
+     * so it is sent in the handshake as is instead of being looked up by reverse DNS.
+     *
+     * @param address the address as a 32-bit value
+     * @return the InetAddress
+     */
+    static InetAddress toInetAddress(int address) {
+        var bytes = new byte[]{(byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+        var dotted = (bytes[0] & 0xFF) + "." + (bytes[1] & 0xFF) + "." + (bytes[2] & 0xFF) + "." + (bytes[3] & 0xFF);
+        try {
+            return InetAddress.getByAddress(dotted, bytes);
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package net.thenextlvl.resolver.scanner;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.CancellationToken;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.RawStatus;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SweepWorker class sweeps chunks of an address space handed out by a {@link SweepCoordinator}.
+ * <p>
+ * The worker requests one chunk at a time, pings every address of it on the port of its template options
+ * and streams the raw status response of every server found back to the coordinator, which decodes them.
+ * While a chunk is being swept, the worker renews its lease with heartbeats. Once the coordinator has no
+ * chunks left, the worker disconnects.
+ */
+@NullMarked
+public final class SweepWorker {
+    private final PingOptions template;
+    private final int concurrency;
+
+    private SweepWorker(PingOptions template, int concurrency) {
+        this.template = template;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Creates a builder for a worker pinging every address with the given options.
+     *
+     * @param template the options whose address is replaced by every address swept, its port is kept
+     * @return the new builder
+     */
+    public static Builder builder(PingOptions template) {
+        return new Builder(template);
+    }
+
+    /**
+     * Connects to the given coordinator and sweeps chunks until none are left.
+     *
+     * @param coordinator the address of the coordinator
+     * @throws IOException          if the connection to the coordinator fails
+     * @throws InterruptedException if the current thread is interrupted while sweeping
+     */
+    public void run(InetSocketAddress coordinator) throws IOException, InterruptedException {
+        try (var socket = new Socket();
+             var pool = Executors.newFixedThreadPool(concurrency);
+             var heartbeats = Executors.newSingleThreadScheduledExecutor()) {
+            socket.connect(coordinator);
+            socket.setTcpNoDelay(true);
+
+            var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeInt(SweepProtocol.MAGIC);
+            output.writeInt(SweepProtocol.VERSION);
+
+            for (; ; ) {
+                synchronized (output) {
+                    output.writeByte(SweepProtocol.REQUEST);
+                    output.flush();
+                }
+                var type = input.readByte();
+                switch (type) {
+                    case SweepProtocol.CHUNK -> {
+                        var chunk = input.readInt();
+                        var first = input.readLong();
+                        var last = input.readLong();
+                        var lease = input.readInt();
+                        sweep(chunk, first, last, lease, output, pool, heartbeats);
+                    }
+                    case SweepProtocol.RETRY -> Thread.sleep(input.readInt());
+                    case SweepProtocol.DONE -> {
+                        return;
+                    }
+                    default -> throw new ProtocolException("Unknown message type " + type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pings every address of the given chunk and reports it as complete.
+     */
+    private void sweep(int chunk, long first, long last, int lease, DataOutputStream output,
+                       ExecutorService pool, ScheduledExecutorService heartbeats) throws IOException, InterruptedException {
+        var token = new CancellationToken();
+        var cursor = new AtomicLong(first);
+        var period = Math.max(1, lease / 3);
+        var heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            try {
+                synchronized (output) {
+                    output.writeByte(SweepProtocol.HEARTBEAT);
+                    output.writeInt(chunk);
+                    output.flush();
+                }
+            } catch (IOException e) {
+                token.cancel();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+
+        var tasks = new ArrayList<Callable<Void>>(concurrency);
+        for (var i = 0; i < concurrency; i++) {
+            tasks.add(() -> {
+                for (long address; (address = cursor.getAndIncrement()) <= last && !token.isCancelled(); ) {
+                    probe(chunk, (int) address, output, token);
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (var future : pool.invokeAll(tasks)) future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            token.cancel();
+            throw e;
+        } finally {
+            heartbeat.cancel(false);
+        }
+        if (token.isCancelled()) throw new IOException("Lost connection to the coordinator");
+
+        synchronized (output) {
+            output.writeByte(SweepProtocol.COMPLETE);
+            output.writeInt(chunk);
+            output.flush();
+        }
+    }
+
+    private void probe(int chunk, int address, DataOutputStream output, CancellationToken token) throws IOException {
+        var ip = SweepProtocol.toInetAddress(address);
+        var port = template.getAddress().getPort();
+        var options = template.toBuilder().address(new InetSocketAddress(ip, port)).build();
+
+        RawStatus status;
+        try {
+            status = Ping.exchange(options, token);
+        } catch (IOException | RuntimeException e) {
+            return;
+        }
+
+        try (status) {
+            synchronized (output) {
+                output.writeByte(SweepProtocol.RESULT);
+                output.writeInt(chunk);
+                output.writeInt(address);
+                output.writeShort(port);
+                output.writeLong(status.getPing());
+                output.writeInt(status.getLength());
+                output.write(status.getData(), 0, status.getLength());
+                output.flush();
+            }
+        } catch (IOException e) {
+            token.cancel();
+            throw e;
+        }
+    }
+
+    public static class Builder {
+        private final PingOptions template;
+        private int concurrency = 256;
+
+        private Builder(PingOptions template) {
+            this.template = template;
+        }
+
+        /**
+         * Sets the number of addresses pinged concurrently.
+         *
+         * @param concurrency the number of concurrent pings
+         * @return this builder
+         */
+        public Builder concurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public SweepWorker build() {
+            Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+            return new SweepWorker(template, concurrency);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.thenextlvl.resolver.sink;
+
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes batches of results on behalf of a {@link BatchingResultSink}.
+ * <p>
+ * All methods are called from the single writer thread of the sink, so implementations
+ * do not need to be thread-safe and are free to block.
+ */
+@NullMarked
+public interface BatchWriter extends Closeable {
+    /**
+     * Writes a batch of results.
+     *
+     * @param batch the results to write, only valid for the duration of the call
+     * @throws IOException if the results could not be written
+     */
+    void write(List<ServerPing> batch) throws IOException;
+
+    /**
+     * Flushes previously written results to their destination.
+     *
+     * @throws IOException if the results could not be flushed
+     */
+    default void flush() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
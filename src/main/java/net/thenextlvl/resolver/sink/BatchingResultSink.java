@@ -0,0 +1,203 @@
+package net.thenextlvl.resolver.sink;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ResultSink} that writes results in batches from a dedicated writer thread.
+ * <p>
+ * Scanner threads append results to a bounded lock-free queue and return immediately. The writer
+ * thread collects up to {@link SinkOptions#getFlushSize()} results per batch, hands them to a
+ * {@link BatchWriter} and flushes it at least every {@link SinkOptions#getFlushInterval()}.
+ * Once {@link SinkOptions#getCapacity()} results are waiting, further results are dropped.
+ * <p>
+ * Closing the sink waits for calls to {@link #accept(ServerPing)} that are still in progress, so every
+ * result is either written or counted as dropped, even if it races the close.
+ */
+@NullMarked
+public final class BatchingResultSink implements ResultSink {
+    private final Queue<ServerPing> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger accepting = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final BatchWriter writer;
+    private final SinkOptions options;
+    private final Thread thread;
+
+    private volatile boolean draining;
+    private volatile @Nullable IOException failure;
+
+    /**
+     * Constructs a new sink and starts its writer thread.
+     *
+     * @param writer  the writer the batches are handed to
+     * @param options the queue and flush options of the sink
+     */
+    public BatchingResultSink(BatchWriter writer, SinkOptions options) {
+        Preconditions.checkArgument(options.getCapacity() > 0, "capacity must be positive");
+        Preconditions.checkArgument(options.getFlushSize() > 0, "flushSize must be positive");
+        Preconditions.checkArgument(options.getFlushInterval().isPositive(), "flushInterval must be positive");
+        this.writer = writer;
+        this.options = options;
+        this.thread = Thread.ofPlatform().name("Result Sink Writer").daemon().start(this::run);
+    }
+
+    /**
+     * Creates a sink delivering batches of results to the given consumer on the writer thread,
+     * for example to insert them into a database.
+     *
+     * @param consumer the consumer receiving every batch
+     * @param options  the queue and flush options of the sink
+     * @return the new sink
+     */
+    public static BatchingResultSink of(Consumer<List<ServerPing>> consumer, SinkOptions options) {
+        return new BatchingResultSink(consumer::accept, options);
+    }
+
+    /**
+     * Creates a sink writing one JSON object per line to the given file.
+     *
+     * @param file    the file to write to, replaced if it exists
+     * @param options the queue, flush and compression options of the sink
+     * @return the new sink
+     * @throws IOException if the file cannot be opened
+     */
+    public static BatchingResultSink ndjson(Path file, SinkOptions options) throws IOException {
+        return new BatchingResultSink(new NdjsonWriter(file, options.isGzip()), options);
+    }
+
+    /**
+     * Creates a sink writing comma-separated values with a header line to the given file.
+     *
+     * @param file    the file to write to, replaced if it exists
+     * @param options the queue, flush and compression options of the sink
+     * @return the new sink
+     * @throws IOException if the file cannot be opened
+     */
+    public static BatchingResultSink csv(Path file, SinkOptions options) throws IOException {
+        return new BatchingResultSink(new CsvWriter(file, options.isGzip()), options);
+    }
+
+    @Override
+    public void accept(ServerPing ping) {
+        accepting.incrementAndGet();
+        try {
+            if (closed.get()) {
+                dropped.increment();
+                return;
+            }
+            if (pending.incrementAndGet() > options.getCapacity()) {
+                pending.decrementAndGet();
+                dropped.increment();
+                return;
+            }
+            queue.add(ping);
+            if (pending.get() >= options.getFlushSize()) LockSupport.unpark(thread);
+        } finally {
+            accepting.decrementAndGet();
+        }
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of results waiting to be written.
+     *
+     * @return the number of queued results
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        // an accept that missed the flag may still be adding its result, the writer must not drain before it did
+        while (accepting.get() > 0) Thread.onSpinWait();
+        draining = true;
+        LockSupport.unpark(thread);
+        // closing the writer while the thread still writes would corrupt the output, so an interrupt only gets restored
+        var interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+        var failure = this.failure;
+        if (failure != null) throw failure;
+    }
+
+    private void run() {
+        var batch = new ArrayList<ServerPing>(options.getFlushSize());
+        var interval = options.getFlushInterval().toNanos();
+        var lastFlush = System.nanoTime();
+        var unflushed = false;
+
+        while (true) {
+            var closed = this.draining;
+
+            ServerPing ping;
+            while (batch.size() < options.getFlushSize() && (ping = queue.poll()) != null) batch.add(ping);
+            if (!batch.isEmpty()) {
+                pending.addAndGet(-batch.size());
+                perform(() -> writer.write(batch));
+                batch.clear();
+                unflushed = true;
+            }
+
+            var now = System.nanoTime();
+            var drained = queue.isEmpty();
+            if (unflushed && (now - lastFlush >= interval || closed && drained)) {
+                perform(writer::flush);
+                unflushed = false;
+                lastFlush = now;
+            }
+
+            if (closed && drained) return;
+            if (pending.get() < options.getFlushSize() && !draining) {
+                LockSupport.parkNanos(this, unflushed ? Math.max(0, interval - (now - lastFlush)) : interval);
+            }
+        }
+    }
+
+    private void perform(IOAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        } catch (RuntimeException e) {
+            if (failure == null) failure = new IOException(e);
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,58 @@
+package net.thenextlvl.resolver.sink;
+
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.ServerType;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes every result as a line of comma-separated values, following RFC 4180 quoting rules.
+ */
+@NullMarked
+final class CsvWriter extends FileBatchWriter {
+    private static final String HEADER = "host,ip,port,ping,protocol,version,online,max,brand,proxy,modType,faviconHash,asn,organization,description";
+
+    CsvWriter(Path file, boolean gzip) throws IOException {
+        super(file, gzip);
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    protected void write(ServerPing ping, ServerType type) throws IOException {
+        var address = ping.getAddress();
+        var version = ping.getVersion();
+        var players = ping.getPlayers();
+        field(address.getHostString());
+        field(address.isUnresolved() ? null : address.getAddress().getHostAddress());
+        field(address.getPort());
+        field(ping.getPing());
+        field(version != null ? version.getProtocol() : null);
+        field(version != null ? version.getName() : null);
+        field(players != null ? players.getOnline() : null);
+        field(players != null ? players.getMax() : null);
+        field(type.brand());
+        field(type.proxy());
+        field(type.modType());
+        field(ping.getFaviconHash());
+        field(ping.getAsn() != null ? Integer.toUnsignedString(ping.getAsn().number()) : null);
+        field(ping.getAsn() != null ? ping.getAsn().organization() : null);
+        writer.write(quote(ping.getDescription() != null ? ping.getDescription().text() : null));
+        writer.write("\r\n");
+    }
+
+    private void field(@Nullable Object value) throws IOException {
+        writer.write(quote(value != null ? value.toString() : null));
+        writer.write(',');
+    }
+
+    private static String quote(@Nullable String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
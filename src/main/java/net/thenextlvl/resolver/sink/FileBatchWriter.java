@@ -0,0 +1,54 @@
+package net.thenextlvl.resolver.sink;
+
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.ServerType;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link BatchWriter} writing one text record per result to a file, optionally gzip compressed.
+ */
+@NullMarked
+abstract class FileBatchWriter implements BatchWriter {
+    protected final Writer writer;
+
+    protected FileBatchWriter(Path file, boolean gzip) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        if (gzip) output = new GZIPOutputStream(output, 1 << 16, true);
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    @Override
+    public void write(List<ServerPing> batch) throws IOException {
+        for (var ping : batch) write(ping, ServerType.guess(ping));
+    }
+
+    /**
+     * Writes the record of a single result.
+     *
+     * @param ping the result to write
+     * @param type the guessed type of the server
+     * @throws IOException if the record could not be written
+     */
+    protected abstract void write(ServerPing ping, ServerType type) throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
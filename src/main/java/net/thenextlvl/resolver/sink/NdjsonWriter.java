@@ -0,0 +1,50 @@
+package net.thenextlvl.resolver.sink;
+
+import com.google.gson.stream.JsonWriter;
+import net.thenextlvl.resolver.ServerPing;
+import net.thenextlvl.resolver.ServerType;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes every result as a single-line JSON object.
+ */
+@NullMarked
+final class NdjsonWriter extends FileBatchWriter {
+    NdjsonWriter(Path file, boolean gzip) throws IOException {
+        super(file, gzip);
+    }
+
+    @Override
+    protected void write(ServerPing ping, ServerType type) throws IOException {
+        var address = ping.getAddress();
+        var json = new JsonWriter(writer);
+        json.setSerializeNulls(false);
+        json.beginObject();
+        json.name("host").value(address.getHostString());
+        if (!address.isUnresolved()) json.name("ip").value(address.getAddress().getHostAddress());
+        json.name("port").value(address.getPort());
+        json.name("ping").value(ping.getPing());
+        if (ping.getVersion() != null) {
+            json.name("protocol").value(ping.getVersion().getProtocol());
+            json.name("version").value(ping.getVersion().getName());
+        }
+        if (ping.getPlayers() != null) {
+            json.name("online").value(ping.getPlayers().getOnline());
+            json.name("max").value(ping.getPlayers().getMax());
+        }
+        json.name("brand").value(type.brand());
+        json.name("proxy").value(type.proxy());
+        json.name("modType").value(type.modType());
+        if (ping.getDescription() != null) json.name("description").value(ping.getDescription().text());
+        json.name("faviconHash").value(ping.getFaviconHash());
+        if (ping.getAsn() != null) {
+            json.name("asn").value(Integer.toUnsignedLong(ping.getAsn().number()));
+            json.name("organization").value(ping.getAsn().organization());
+        }
+        json.endObject();
+        writer.write('\n');
+    }
+}
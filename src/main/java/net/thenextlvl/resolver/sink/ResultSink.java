@@ -0,0 +1,42 @@
+package net.thenextlvl.resolver.sink;
+
+import net.thenextlvl.resolver.ServerPing;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A destination for scan results that decouples the scanner threads from the consumer.
+ * <p>
+ * A sink is passed to a scanner in place of its success callback. Accepting a result never blocks
+ * the probing thread: results are handed off to a background writer, and if the sink cannot keep up
+ * they are dropped and counted instead of slowing down the scan.
+ * <p>
+ * Closing a sink delivers every result that was accepted before and releases its resources.
+ */
+@NullMarked
+public interface ResultSink extends Consumer<ServerPing>, AutoCloseable {
+    /**
+     * Hands the result off to the sink without blocking.
+     *
+     * @param ping the result to deliver
+     */
+    @Override
+    void accept(ServerPing ping);
+
+    /**
+     * Returns the number of results that were dropped because the sink was full or already closed.
+     *
+     * @return the number of dropped results
+     */
+    long getDropped();
+
+    /**
+     * Delivers all pending results and releases the resources of the sink.
+     *
+     * @throws IOException if the pending results could not be written
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,97 @@
+package net.thenextlvl.resolver.sink;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.time.Duration;
+
+/**
+ * Represents the options for a {@link BatchingResultSink}.
+ * <p>
+ * Instances of this class are immutable and can be created using the builder pattern.
+ * <p>
+ * Fields:<br>
+ * - capacity: The maximum number of results waiting to be written before new results are dropped. Defaults to 65536.<br>
+ * - flushSize: The maximum number of results written as one batch. Defaults to 1024.<br>
+ * - flushInterval: The maximum time a result waits before it is written, must be positive. Defaults to 1 second.<br>
+ * - gzip: Whether file sinks compress their output using gzip. Defaults to false.
+ */
+@NullMarked
+public class SinkOptions {
+    private final int capacity;
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final boolean gzip;
+
+    private SinkOptions(int capacity, int flushSize, Duration flushInterval, boolean gzip) {
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.gzip = gzip;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+                .capacity(capacity)
+                .flushSize(flushSize)
+                .flushInterval(flushInterval)
+                .gzip(gzip);
+    }
+
+    public static SinkOptions defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int capacity = 65536;
+        private int flushSize = 1024;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private boolean gzip = false;
+
+        private Builder() {
+        }
+
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder flushSize(int flushSize) {
+            this.flushSize = flushSize;
+            return this;
+        }
+
+        public Builder flushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        public Builder gzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        public SinkOptions build() {
+            return new SinkOptions(capacity, flushSize, flushInterval, gzip);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.thenextlvl.resolver.store;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A content-addressed on-disk store for server favicons.
+ * <p>
+ * Every favicon is decoded from its data URI, hashed with SHA-256 and written once to
+ * {@code <root>/<first two hex digits>/<hash>.png}. Servers sharing an icon - hosting networks reusing
+ * one on hundreds of backends, or the default icons of server software - therefore share one file,
+ * and a {@link net.thenextlvl.resolver.ServerPing} only has to carry the hash.
+ * <p>
+ * Up to {@value #MAX_KNOWN} recently stored hashes are remembered, so repeated favicons
+ * cost a hash computation but no file system access. Hashes that were forgotten again only cost
+ * an existence check of their file.
+ */
+@NullMarked
+public final class FaviconStore {
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+    private static final int MAX_KNOWN = 16384;
+
+    private final Set<String> known = Collections.newSetFromMap(CacheBuilder.newBuilder()
+            .maximumSize(MAX_KNOWN)
+            .<String, Boolean>build()
+            .asMap());
+    private final Path root;
+
+    /**
+     * Constructs a new favicon store.
+     *
+     * @param root the directory the favicons are stored in, created if it does not exist
+     * @throws IOException if the directory cannot be created
+     */
+    public FaviconStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    /**
+     * Stores the given favicon unless an identical one is stored already.
+     *
+     * @param favicon the favicon as sent by the server, a base64 encoded PNG data URI
+     * @return the SHA-256 hash of the decoded image, in lowercase hex
+     * @throws IllegalArgumentException if the favicon is not a base64 encoded PNG data URI
+     * @throws IOException              if the favicon cannot be written
+     */
+    public String store(String favicon) throws IOException {
+        Preconditions.checkArgument(favicon.startsWith(DATA_URI_PREFIX), "Not a PNG data URI");
+        var image = Base64.getMimeDecoder().decode(favicon.substring(DATA_URI_PREFIX.length()));
+        var hash = Hashing.sha256().hashBytes(image).toString();
+        if (known.contains(hash)) return hash;
+
+        var file = path(hash);
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            var temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, image);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ignored) {
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        known.add(hash);
+        return hash;
+    }
+
+    /**
+     * Loads the image with the given hash.
+     *
+     * @param hash the hash returned by {@link #store(String)}
+     * @return the PNG image, or an empty Optional if no favicon with the hash is stored
+     * @throws IOException if the favicon cannot be read
+     */
+    public Optional<byte[]> load(String hash) throws IOException {
+        try {
+            return Optional.of(Files.readAllBytes(path(hash)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads the image with the given hash as a data URI, the way servers send it.
+     *
+     * @param hash the hash returned by {@link #store(String)}
+     * @return the favicon data URI, or an empty Optional if no favicon with the hash is stored
+     * @throws IOException if the favicon cannot be read
+     */
+    public Optional<String> loadDataUri(String hash) throws IOException {
+        return load(hash).map(image -> DATA_URI_PREFIX + Base64.getEncoder().encodeToString(image));
+    }
+
+    /**
+     * Returns the file the favicon with the given hash is stored in.
+     *
+     * @param hash the hash of the favicon
+     * @return the path of the favicon file
+     * @throws IllegalArgumentException if the hash is not a SHA-256 hex string
+     */
+    public Path path(String hash) {
+        Preconditions.checkArgument(hash.length() == 64 && hash.chars().allMatch(c -> Character.digit(c, 16) >= 0),
+                "Not a SHA-256 hash: %s", hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".png");
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+}
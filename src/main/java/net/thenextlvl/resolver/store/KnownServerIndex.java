@@ -0,0 +1,406 @@
+package net.thenextlvl.resolver.store;
+
+import com.google.common.base.Preconditions;
+import net.thenextlvl.resolver.CompactServerPing;
+import net.thenextlvl.resolver.util.OffHeapLongPairSet;
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A persistent index of every known server, stored in a memory-mapped file.
+ * <p>
+ * Servers are keyed by their packed IPv4 address and port, a 48-bit value, and kept in a fixed-size
+ * open-addressing hash table. For every server the index holds the time it was last seen, its last
+ * latency, its protocol version, a brand id and the highest player count ever observed.
+ * <p>
+ * Brand ids are assigned by the index itself and stay valid across restarts: every brand is appended to a
+ * {@code .brands} file next to the index before its id is handed out, and the brands are read back in the
+ * same order when the index is opened. Use {@link #brandId(String)} and {@link #brand(int)} to convert them.
+ * <p>
+ * The table lives entirely in the mapped file, so opening an existing index is instant and
+ * no state has to be rebuilt on startup. Slots are claimed with a compare-and-set on their key and
+ * values are updated with atomic operations, so any number of scanner threads can upsert concurrently
+ * without locking. Each field is updated atomically on its own, but a reader may observe the fields of
+ * an entry from two different concurrent updates.
+ * <p>
+ * The capacity is fixed when the index is created and should be about twice the number of expected servers.
+ * <p>
+ * File layout: a 64-byte header ({@code magic, version, capacity, size}) followed by {@code capacity}
+ * 32-byte slots ({@code key, lastSeen, latency, protocol, brand, peakPlayers}) in native byte order.
+ * The header is written and forced before the file is extended to hold the slots, so an index whose
+ * creation was interrupted either has no header yet and is created again, or a header and no slots.
+ * The brands file holds one record per brand: its length as an unsigned short followed by its UTF-8 bytes.
+ */
+@NullMarked
+public final class KnownServerIndex implements AutoCloseable {
+    private static final long MAGIC = 0x4B4E4F574E494458L; // KNOWNIDX
+    private static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 32;
+    private static final int CHUNK_SHIFT = 25; // 32M slots, 1 GiB per mapping
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+
+    private static final int KEY = 0;
+    private static final int LAST_SEEN = 8;
+    private static final int LATENCY = 16;
+    private static final int PROTOCOL = 20;
+    private static final int BRAND = 24;
+    private static final int PEAK_PLAYERS = 28;
+
+    /**
+     * Marks a slot as occupied, so the packed key {@code 0.0.0.0:0} is distinguishable from an empty slot.
+     */
+    private static final long OCCUPIED = 1L << 48;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final StringDictionary brands;
+    private final FileChannel brandChannel;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] chunks;
+    private final long capacity;
+    private final long mask;
+
+    private KnownServerIndex(FileChannel channel, MappedByteBuffer header, FileChannel brandChannel, long capacity) throws IOException {
+        this.brands = readBrands(brandChannel);
+        this.brandChannel = brandChannel;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.header = header;
+        this.chunks = new MappedByteBuffer[(int) Math.max(1, capacity >>> CHUNK_SHIFT)];
+        for (var i = 0; i < chunks.length; i++) {
+            var slots = Math.min(capacity, CHUNK_SLOTS);
+            var position = HEADER_BYTES + (long) i * CHUNK_SLOTS * SLOT_BYTES;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, slots * SLOT_BYTES);
+        }
+    }
+
+    /**
+     * Opens the index stored in the given file, creating it with the given capacity if it does not exist.
+     *
+     * @param file     the file the index is stored in
+     * @param capacity the number of slots of a newly created index, rounded up to the next power of two;
+     *                 ignored if the index already exists
+     * @return the opened index
+     * @throws IOException if the file cannot be mapped or is not a valid index
+     */
+    public static KnownServerIndex open(Path file, long capacity) throws IOException {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel brandChannel = null;
+        try {
+            var existing = readCapacity(file, channel);
+            brandChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".brands"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.nativeOrder());
+            if (existing > 0) return new KnownServerIndex(channel, header, brandChannel, existing);
+
+            var size = Long.highestOneBit(Math.max(16, capacity));
+            if (size < capacity) size <<= 1;
+            header.putLong(16, size);
+            header.putInt(8, VERSION);
+            header.putLong(0, MAGIC);
+            header.force();
+            return new KnownServerIndex(channel, header, brandChannel, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (brandChannel != null) brandChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Validates the header of an existing index.
+     *
+     * @return the capacity of the index, or 0 if the index has to be created
+     */
+    private static long readCapacity(Path file, FileChannel channel) throws IOException {
+        var length = channel.size();
+        if (length == 0) return 0;
+        var header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+        while (header.hasRemaining()) if (channel.read(header, header.position()) < 0) break;
+        if (header.getLong(0) != MAGIC) {
+            // a header that was never completely written belongs to an interrupted creation
+            if (length <= HEADER_BYTES && header.getLong(0) == 0) return 0;
+            throw new IOException("Not a known server index: " + file);
+        }
+        if (header.getInt(8) != VERSION) throw new IOException("Unsupported index version: " + header.getInt(8));
+        var capacity = header.getLong(16);
+        // a file holding just the header was interrupted before its empty slots were allocated
+        if (length != HEADER_BYTES && length < HEADER_BYTES + capacity * SLOT_BYTES)
+            throw new IOException("Truncated index: " + file);
+        return capacity;
+    }
+
+    /**
+     * Reads the brands in the order their ids were assigned, dropping a record torn by a crash.
+     */
+    private static StringDictionary readBrands(FileChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+        while (buffer.hasRemaining()) if (channel.read(buffer, buffer.position()) < 0) break;
+        buffer.flip();
+
+        var brands = new StringDictionary();
+        var valid = 0;
+        while (buffer.remaining() >= Short.BYTES) {
+            var length = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < length) break;
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            brands.encode(new String(bytes, StandardCharsets.UTF_8));
+            valid = buffer.position();
+        }
+        channel.truncate(valid);
+        channel.position(valid);
+        return brands;
+    }
+
+    /**
+     * Packs an IPv4 address and port into the 48-bit key used by this index.
+     *
+     * @param address the IPv4 socket address
+     * @return the packed key
+     * @throws IllegalArgumentException if the address is unresolved or not an IPv4 address
+     */
+    public static long key(InetSocketAddress address) {
+        Preconditions.checkArgument(address.getAddress() instanceof Inet4Address, "Not an IPv4 address: %s", address);
+        var bytes = address.getAddress().getAddress();
+        var ip = (bytes[0] & 0xFFL) << 24 | (bytes[1] & 0xFFL) << 16 | (bytes[2] & 0xFFL) << 8 | bytes[3] & 0xFFL;
+        return ip << 16 | address.getPort();
+    }
+
+    /**
+     * Records a sighting of the given server.
+     *
+     * @param ping     the result of the server
+     * @param lastSeen the time the server was seen, in milliseconds since the epoch
+     * @throws IllegalArgumentException if the server does not have an IPv4 address
+     * @throws IllegalStateException    if the index is full
+     */
+    public void upsert(CompactServerPing ping, long lastSeen) {
+        Preconditions.checkArgument(ping.isIPv4(), "Not an IPv4 address: %s", ping.getAddress());
+        var key = (ping.getAddressLow() & 0xFFFFFFFFL) << 16 | ping.getPort();
+        var brand = brandId(ping.getDictionary().decode(ping.getBrandId()));
+        upsert(key, lastSeen, ping.getPing(), ping.getProtocol(), brand, ping.getOnlinePlayers());
+    }
+
+    /**
+     * Returns the persistent id of the given brand, assigning and storing a new one if the brand is not known yet.
+     *
+     * @param brand the brand of a server
+     * @return the brand id, or {@link StringDictionary#NULL} if the brand is null
+     * @throws UncheckedIOException if a new brand cannot be written to the brands file
+     */
+    public int brandId(@Nullable String brand) {
+        if (brand == null) return StringDictionary.NULL;
+        var id = brands.lookup(brand);
+        if (id != StringDictionary.NULL) return id;
+        synchronized (brands) {
+            id = brands.lookup(brand);
+            if (id != StringDictionary.NULL) return id;
+            var bytes = brand.getBytes(StandardCharsets.UTF_8);
+            Preconditions.checkArgument(bytes.length <= 0xFFFF, "Brand too long: %s bytes", bytes.length);
+            var record = ByteBuffer.allocate(Short.BYTES + bytes.length).putShort((short) bytes.length).put(bytes).flip();
+            try {
+                // the brand is stored before its id can reach a slot
+                while (record.hasRemaining()) brandChannel.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return brands.encode(brand);
+        }
+    }
+
+    /**
+     * Returns the brand with the given persistent id.
+     *
+     * @param id the brand id of an entry
+     * @return the brand, or null if the id is {@link StringDictionary#NULL}
+     * @throws IndexOutOfBoundsException if no brand was assigned the id
+     */
+    public @Nullable String brand(int id) {
+        return brands.decode(id);
+    }
+
+    /**
+     * Records a sighting of the server with the given key.
+     * The last seen time and the peak player count only ever grow,
+     * the latency, protocol and brand are replaced.
+     *
+     * @param key      the packed address and port of the server
+     * @param lastSeen the time the server was seen, in milliseconds since the epoch
+     * @param latency  the latency of the server in milliseconds
+     * @param protocol the protocol version of the server
+     * @param brand    the brand id of the server, as returned by {@link #brandId(String)}
+     * @param players  the number of players online
+     * @throws IllegalStateException if the index is full
+     */
+    public void upsert(long key, long lastSeen, int latency, int protocol, int brand, int players) {
+        Preconditions.checkArgument((key & ~(OCCUPIED - 1)) == 0, "Key exceeds 48 bits: %s", key);
+        var slot = claim(key | OCCUPIED);
+        var chunk = chunk(slot);
+        var offset = offset(slot);
+
+        long seen;
+        do seen = (long) LONG.getVolatile(chunk, offset + LAST_SEEN);
+        while (seen < lastSeen && !LONG.compareAndSet(chunk, offset + LAST_SEEN, seen, lastSeen));
+
+        INT.setVolatile(chunk, offset + LATENCY, latency);
+        INT.setVolatile(chunk, offset + PROTOCOL, protocol);
+        INT.setVolatile(chunk, offset + BRAND, brand);
+
+        int peak;
+        do peak = (int) INT.getVolatile(chunk, offset + PEAK_PLAYERS);
+        while (peak < players && !INT.compareAndSet(chunk, offset + PEAK_PLAYERS, peak, players));
+    }
+
+    /**
+     * Looks up the server with the given key.
+     *
+     * @param key the packed address and port of the server
+     * @return the entry of the server, or null if it is not known
+     */
+    public @Nullable Entry get(long key) {
+        var stored = key | OCCUPIED;
+        for (long slot = hash(key) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            var current = (long) LONG.getVolatile(chunk, offset + KEY);
+            if (current == 0) return null;
+            if (current == stored) return entry(chunk, offset, key);
+        }
+        return null;
+    }
+
+    /**
+     * Calls the given action for every known server, in no particular order.
+     *
+     * @param action the action receiving every entry
+     */
+    public void forEach(Consumer<Entry> action) {
+        for (var slot = 0L; slot < capacity; slot++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            var key = (long) LONG.getVolatile(chunk, offset + KEY);
+            if (key != 0) action.accept(entry(chunk, offset, key & (OCCUPIED - 1)));
+        }
+    }
+
+    /**
+     * Returns the number of known servers.
+     *
+     * @return the number of occupied slots
+     */
+    public long size() {
+        return (long) LONG.getVolatile(header, 24);
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes all changes of the mapped file and the brands file to the storage device.
+     */
+    public void force() {
+        header.force();
+        for (var chunk : chunks) chunk.force();
+        try {
+            brandChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel; brandChannel) {
+            force();
+        }
+    }
+
+    private long claim(long stored) {
+        for (long slot = hash(stored & (OCCUPIED - 1)) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            var chunk = chunk(slot);
+            var offset = offset(slot);
+            var current = (long) LONG.getVolatile(chunk, offset + KEY);
+            if (current == stored) return slot;
+            if (current != 0) continue;
+            var witness = (long) LONG.compareAndExchange(chunk, offset + KEY, 0L, stored);
+            if (witness == 0) {
+                LONG.getAndAdd(header, 24, 1L);
+                return slot;
+            }
+            if (witness == stored) return slot;
+        }
+        throw new IllegalStateException("Known server index is full");
+    }
+
+    private MappedByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)];
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+    }
+
+    private static long hash(long key) {
+        return OffHeapLongPairSet.hash(0, key);
+    }
+
+    private static Entry entry(MappedByteBuffer chunk, int offset, long key) {
+        return new Entry(key,
+                (long) LONG.getVolatile(chunk, offset + LAST_SEEN),
+                (int) INT.getVolatile(chunk, offset + LATENCY),
+                (int) INT.getVolatile(chunk, offset + PROTOCOL),
+                (int) INT.getVolatile(chunk, offset + BRAND),
+                (int) INT.getVolatile(chunk, offset + PEAK_PLAYERS));
+    }
+
+    /**
+     * A snapshot of a known server.
+     *
+     * @param key         the packed address and port of the server
+     * @param lastSeen    the time the server was last seen, in milliseconds since the epoch
+     * @param latency     the last latency of the server in milliseconds
+     * @param protocol    the last protocol version of the server
+     * @param brand       the last brand id of the server, see {@link KnownServerIndex#brand(int)}
+     * @param peakPlayers the highest number of players ever seen online
+     */
+    public record Entry(long key, long lastSeen, int latency, int protocol, int brand, int peakPlayers) {
+        /**
+         * Returns the IPv4 address of the server as an unsigned integer.
+         *
+         * @return the address of the server
+         */
+        public long address() {
+            return key >>> 16;
+        }
+
+        public int port() {
+            return (int) (key & 0xFFFF);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package net.thenextlvl.resolver.util;
+
+import com.google.common.base.Preconditions;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A pool of byte arrays organized in power-of-two size classes.
+ * <p>
+ * Buffers are kept in a small fixed number of lock-free slots per size class, so a buffer acquired
+ * on one thread may be released on another, and the memory retained by the pool stays bounded no matter
+ * how many threads use it. Besides the slot count, the total size of the retained buffers is capped, so a
+ * pool with many slots of large size classes does not hold on to all of them after a burst of large responses. There is deliberately no per-thread cache, since scanners run thousands of
+ * short-lived pool threads. Requests larger than the largest size class are allocated directly and
+ * never pooled.
+ * <p>
+ * Buffers are not cleared when they are released, so their contents must not be trusted beyond
+ * the number of bytes written into them.
+ */
+@NullMarked
+public final class BufferPool {
+    private static final int MIN_SHIFT = 10; // 1 KiB
+
+    private final AtomicReferenceArray<byte[]>[] shared;
+    private final AtomicLong retained = new AtomicLong();
+    private final long maxRetained;
+    private final int maxShift;
+
+    /**
+     * Constructs a new buffer pool.
+     *
+     * @param maxSize     the largest buffer size that is pooled, rounded up to the next power of two
+     * @param perClass    the number of buffers kept for each size class
+     * @param maxRetained the largest total size in bytes of the buffers kept by the pool
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(int maxSize, int perClass, long maxRetained) {
+        Preconditions.checkArgument(maxSize > 0 && maxSize <= 1 << 30, "maxSize out of range");
+        Preconditions.checkArgument(perClass >= 0, "perClass must not be negative");
+        Preconditions.checkArgument(maxRetained >= 0, "maxRetained must not be negative");
+        this.maxRetained = maxRetained;
+        this.maxShift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(maxSize - 1));
+        var classes = maxShift - MIN_SHIFT + 1;
+        this.shared = (AtomicReferenceArray<byte[]>[]) new AtomicReferenceArray<?>[classes];
+        for (var i = 0; i < classes; i++) shared[i] = new AtomicReferenceArray<>(perClass);
+    }
+
+    /**
+     * Returns a buffer of at least the given size.
+     *
+     * @param size the minimum number of bytes the buffer must hold
+     * @return a pooled or newly allocated buffer
+     */
+    public byte[] acquire(int size) {
+        Preconditions.checkArgument(size >= 0, "size must not be negative");
+        var sizeClass = sizeClass(size);
+        if (sizeClass < 0) return new byte[size];
+
+        var slots = shared[sizeClass];
+        for (var i = 0; i < slots.length(); i++) {
+            var buffer = slots.getPlain(i) != null ? slots.getAndSet(i, null) : null;
+            if (buffer == null) continue;
+            retained.addAndGet(-buffer.length);
+            return buffer;
+        }
+        return new byte[1 << (sizeClass + MIN_SHIFT)];
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers whose length is not one of the size classes are ignored,
+     * as are buffers released while all slots of their size class are taken or while keeping them
+     * would exceed the retained size limit.
+     *
+     * @param buffer the buffer to return, may be null
+     */
+    public void release(byte @Nullable [] buffer) {
+        if (buffer == null || Integer.bitCount(buffer.length) != 1) return;
+        var sizeClass = Integer.numberOfTrailingZeros(buffer.length) - MIN_SHIFT;
+        if (sizeClass < 0 || sizeClass >= shared.length) return;
+
+        // reserve the bytes before publishing the buffer, so concurrent releases cannot overshoot the limit
+        if (retained.addAndGet(buffer.length) > maxRetained) {
+            retained.addAndGet(-buffer.length);
+            return;
+        }
+        var slots = shared[sizeClass];
+        for (var i = 0; i < slots.length(); i++) {
+            if (slots.getPlain(i) == null && slots.compareAndSet(i, null, buffer)) return;
+        }
+        retained.addAndGet(-buffer.length);
+    }
+
+    /**
+     * Returns the total size of the buffers currently kept by the pool.
+     *
+     * @return the retained bytes
+     */
+    public long getRetained() {
+        return retained.get();
+    }
+
+    private int sizeClass(int size) {
+        var shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, size) - 1));
+        return shift > maxShift ? -1 : shift - MIN_SHIFT;
+    }
+}
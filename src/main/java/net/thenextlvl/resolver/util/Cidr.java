@@ -0,0 +1,104 @@
+package net.thenextlvl.resolver.util;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Helpers for IPv4 addresses and CIDR blocks represented as unsigned 32-bit values in a long.
+ * <p>
+ * Ranges are {@code long[]{startInclusive, endInclusive}} pairs.
+ */
+@NullMarked
+public final class Cidr {
+    private Cidr() {
+    }
+
+    /**
+     * Convert CIDR string (e.g., "192.0.2.0/24") to [startInclusive, endInclusive] (as unsigned longs)
+     *
+     * @param cidr the CIDR block, host bits are ignored
+     * @return the range of the block
+     * @throws IllegalArgumentException if the block is malformed
+     */
+    public static long[] toRange(String cidr) {
+        var parts = cidr.trim().split("/");
+        if (parts.length != 2) throw new IllegalArgumentException("Bad CIDR: " + cidr);
+
+        var prefix = Integer.parseInt(parts[1]);
+        if (prefix < 0 || prefix > 32) throw new IllegalArgumentException("Bad prefix: " + prefix);
+
+        var mask = (prefix == 0) ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        var start = parse(parts[0]) & mask;
+        var end = (start | (~mask & 0xFFFFFFFFL)) & 0xFFFFFFFFL;
+        return new long[]{start, end};
+    }
+
+    /**
+     * Parses a dotted IPv4 address.
+     *
+     * @param dotted the address, e.g. "192.0.2.1"
+     * @return the address as an unsigned value
+     * @throws IllegalArgumentException if the address is malformed
+     */
+    public static long parse(String dotted) {
+        var q = dotted.split("\\.");
+        if (q.length != 4) throw new IllegalArgumentException("Bad IPv4: " + dotted);
+        var a = octet(q[0], dotted);
+        var b = octet(q[1], dotted);
+        var c = octet(q[2], dotted);
+        var d = octet(q[3], dotted);
+        return ((a << 24) | (b << 16) | (c << 8) | d) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Formats an IPv4 address in dotted form.
+     *
+     * @param value the address, only the lower 32 bits are used
+     * @return the dotted address
+     */
+    public static String format(long value) {
+        var v = value & 0xFFFFFFFFL;
+        var a = (int) ((v >> 24) & 0xFF);
+        var b = (int) ((v >> 16) & 0xFF);
+        var c = (int) ((v >> 8) & 0xFF);
+        var d = (int) (v & 0xFF);
+        return a + "." + b + "." + c + "." + d;
+    }
+
+    /**
+     * Merge overlapping/adjacent intervals; input intervals may be unsorted.
+     *
+     * @param intervals the ranges to merge
+     * @return the merged ranges, sorted by their start
+     */
+    public static List<long[]> merge(List<long[]> intervals) {
+        if (intervals.isEmpty()) return List.of();
+        var list = new ArrayList<>(intervals);
+        list.sort(Comparator.comparingLong(interval -> interval[0]));
+        var out = new ArrayList<long[]>();
+        var curStart = list.getFirst()[0];
+        var curEnd = list.getFirst()[1];
+        for (int i = 1; i < list.size(); i++) {
+            long s = list.get(i)[0], e = list.get(i)[1];
+            if (s <= curEnd + 1) {
+                // overlap or adjacent -> extend
+                curEnd = Math.max(curEnd, e);
+            } else {
+                out.add(new long[]{curStart, curEnd});
+                curStart = s;
+                curEnd = e;
+            }
+        }
+        out.add(new long[]{curStart, curEnd});
+        return out;
+    }
+
+    private static long octet(String octet, String dotted) {
+        var value = Integer.parseInt(octet);
+        if (value < 0 || value > 255) throw new IllegalArgumentException("Bad IPv4: " + dotted);
+        return value;
+    }
+}
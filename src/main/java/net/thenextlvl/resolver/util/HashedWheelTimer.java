@@ -0,0 +1,234 @@
+package net.thenextlvl.resolver.util;
+
+import com.google.common.base.Preconditions;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel used to track a very large number of short-lived deadlines.
+ * <p>
+ * Scheduling and cancelling a {@link Timeout} are both O(1): new timeouts and cancellations are handed
+ * to a single worker thread through lock-free queues, and only the worker touches the wheel buckets.
+ * The worker advances one bucket per tick and runs the tasks of every timeout that expired in it,
+ * so deadlines fire with a precision of one tick.
+ * <p>
+ * Tasks run on the worker thread and must therefore be short, for example closing a socket.
+ *
+ * @see <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf">Hashed and Hierarchical Timing Wheels</a>
+ */
+@NullMarked
+public final class HashedWheelTimer implements AutoCloseable {
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Bucket[] wheel;
+    private final Thread worker;
+    private final long tickNanos;
+    private final int mask;
+
+    private volatile boolean running = true;
+    private long startTime;
+    private long tick;
+
+    /**
+     * Constructs and starts a new timer.
+     *
+     * @param name          the name of the worker thread
+     * @param tickDuration  the duration of a single tick
+     * @param unit          the unit of the tick duration
+     * @param ticksPerWheel the number of buckets, rounded up to the next power of two
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        Preconditions.checkArgument(tickDuration > 0, "tickDuration must be positive");
+        Preconditions.checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "ticksPerWheel out of range");
+        var size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) size <<= 1;
+        this.wheel = new Bucket[size];
+        for (var i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.worker = Thread.ofPlatform().name(name).daemon().start(this::run);
+    }
+
+    /**
+     * Schedules a task to run once the given delay has elapsed.
+     *
+     * @param task  the task to run on expiration
+     * @param delay the delay after which the task runs
+     * @param unit  the unit of the delay
+     * @return the handle that can be used to cancel the task
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Preconditions.checkState(running, "Timer has been stopped");
+        var timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread. Timeouts that have not expired yet are discarded without running.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        startTime = System.nanoTime();
+        while (running) {
+            var deadline = startTime + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < deadline && running) {
+                LockSupport.parkNanos(this, deadline - now);
+            }
+            if (!running) break;
+
+            processCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    private void transferPending() {
+        // bound the transfer so a flood of new timeouts cannot starve expiration
+        for (var i = 0; i < 100_000; i++) {
+            var timeout = pending.poll();
+            if (timeout == null) return;
+            if (timeout.state != Timeout.PENDING) continue;
+
+            var ticks = Math.max((timeout.deadline - startTime + tickNanos - 1) / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A handle for a task scheduled on a {@link HashedWheelTimer}.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+
+        private volatile int state = PENDING;
+        private long remainingRounds;
+
+        private @Nullable Timeout next;
+        private @Nullable Timeout prev;
+        private @Nullable Bucket bucket;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         *
+         * @return true if the task was cancelled, false if it already expired or was cancelled before
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Determines whether the task has run.
+         *
+         * @return true if the deadline was reached before the timeout got cancelled
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * Determines whether the timeout was cancelled.
+         *
+         * @return true if {@link #cancel()} succeeded
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) return;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), t);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts that is only ever accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private @Nullable Timeout head;
+        private @Nullable Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                assert tail != null;
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private @Nullable Timeout remove(Timeout timeout) {
+            var next = timeout.next;
+            if (timeout.prev != null) timeout.prev.next = next;
+            if (next != null) next.prev = timeout.prev;
+            if (timeout == head) head = next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        private void expire(long now) {
+            var timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                    var next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else {
+                    if (timeout.remainingRounds > 0) timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+}
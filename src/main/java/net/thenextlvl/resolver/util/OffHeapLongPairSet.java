@@ -0,0 +1,179 @@
+package net.thenextlvl.resolver.util;
+
+import com.google.common.base.Preconditions;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An open-addressing hash set of 128-bit values stored outside the Java heap.
+ * <p>
+ * Each value is kept as a pair of longs in a linearly probed table of direct buffers, so adding
+ * hundreds of millions of values neither boxes anything nor puts pressure on the garbage collector.
+ * The table starts at the expected size and doubles once it is half full.
+ * <p>
+ * Closing the set drops its buffers, so their native memory is returned with the next garbage collection
+ * instead of whenever the set itself becomes unreachable.
+ * <p>
+ * The pair {@code (0, 0)} marks empty slots and is tracked separately.
+ * <p>
+ * This class is not thread-safe.
+ */
+@NullMarked
+public final class OffHeapLongPairSet implements Closeable {
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_SHIFT = 26; // 64M slots, 1 GiB per chunk
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+
+    private ByteBuffer[] chunks;
+    private long capacity;
+    private long mask;
+    private long size;
+    private boolean containsZero;
+
+    /**
+     * Constructs a new set sized for the given number of values.
+     *
+     * @param expectedSize the number of values expected to be added
+     */
+    public OffHeapLongPairSet(long expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "expectedSize must not be negative");
+        var capacity = Long.highestOneBit(Math.max(16, expectedSize * 2));
+        if (capacity < expectedSize * 2) capacity <<= 1;
+        this.chunks = allocate(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds the given 128-bit value to the set.
+     *
+     * @param high the most significant 64 bits
+     * @param low  the least significant 64 bits
+     * @return true if the value was not already contained
+     * @throws IllegalStateException if the set was closed
+     */
+    public boolean add(long high, long low) {
+        checkOpen();
+        if (high == 0 && low == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > capacity) grow();
+        if (!insert(chunks, mask, high, low)) return false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Determines whether the given 128-bit value is contained in the set.
+     *
+     * @param high the most significant 64 bits
+     * @param low  the least significant 64 bits
+     * @return true if the value was added before
+     * @throws IllegalStateException if the set was closed
+     */
+    public boolean contains(long high, long low) {
+        checkOpen();
+        if (high == 0 && low == 0) return containsZero;
+        for (var slot = hash(high, low) & mask; ; slot = (slot + 1) & mask) {
+            var chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            var offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+            var h = chunk.getLong(offset);
+            var l = chunk.getLong(offset + 8);
+            if (h == 0 && l == 0) return false;
+            if (h == high && l == low) return true;
+        }
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the number of distinct values added
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots currently allocated.
+     *
+     * @return the capacity of the table, or 0 if the set was closed
+     */
+    public long capacity() {
+        return chunks.length == 0 ? 0 : capacity;
+    }
+
+    /**
+     * Releases the buffers of this set. Any further use of the set throws an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        chunks = new ByteBuffer[0];
+    }
+
+    private void checkOpen() {
+        Preconditions.checkState(chunks.length > 0, "Set already closed");
+    }
+
+    private void grow() {
+        var capacity = this.capacity << 1;
+        var chunks = allocate(capacity);
+        var mask = capacity - 1;
+        for (var slot = 0L; slot < this.capacity; slot++) {
+            var chunk = this.chunks[(int) (slot >>> CHUNK_SHIFT)];
+            var offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+            var high = chunk.getLong(offset);
+            var low = chunk.getLong(offset + 8);
+            if (high != 0 || low != 0) insert(chunks, mask, high, low);
+        }
+        this.chunks = chunks;
+        this.capacity = capacity;
+        this.mask = mask;
+    }
+
+    private static boolean insert(ByteBuffer[] chunks, long mask, long high, long low) {
+        for (var slot = hash(high, low) & mask; ; slot = (slot + 1) & mask) {
+            var chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            var offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+            var h = chunk.getLong(offset);
+            var l = chunk.getLong(offset + 8);
+            if (h == high && l == low) return false;
+            if (h != 0 || l != 0) continue;
+            chunk.putLong(offset, high);
+            chunk.putLong(offset + 8, low);
+            return true;
+        }
+    }
+
+    private static ByteBuffer[] allocate(long capacity) {
+        var count = (int) Math.max(1, capacity >>> CHUNK_SHIFT);
+        var chunks = new ByteBuffer[count];
+        var slots = Math.min(capacity, CHUNK_SLOTS);
+        for (var i = 0; i < count; i++) {
+            chunks[i] = ByteBuffer.allocateDirect((int) slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+        return chunks;
+    }
+
+    /**
+     * Mixes both halves of a 128-bit value into a well-distributed 64-bit hash.
+     *
+     * @param high the most significant 64 bits
+     * @param low  the least significant 64 bits
+     * @return the hash of the value
+     */
+    public static long hash(long high, long low) {
+        var h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
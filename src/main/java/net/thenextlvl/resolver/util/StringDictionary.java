@@ -0,0 +1,86 @@
+package net.thenextlvl.resolver.util;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe dictionary assigning dense integer ids to strings.
+ * <p>
+ * Each distinct string is stored exactly once, so values that repeat across many results, like version
+ * names or server brands, can be kept as a 4-byte id instead of a string of their own.
+ * Ids are assigned in insertion order starting at 0 and are never reassigned.
+ * Encoding a string that is already known and decoding an id are both lock-free.
+ */
+@NullMarked
+public final class StringDictionary {
+    /**
+     * The id representing {@code null}.
+     */
+    public static final int NULL = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private volatile int size;
+
+    /**
+     * Returns the id of the given string, assigning a new one if the string is not known yet.
+     *
+     * @param value the string to encode
+     * @return the id of the string, or {@link #NULL} if the string is null
+     */
+    public int encode(@Nullable String value) {
+        if (value == null) return NULL;
+        var id = ids.get(value);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) return id;
+            var values = this.values;
+            var next = size;
+            if (next == values.length) values = Arrays.copyOf(values, next * 2);
+            values[next] = value;
+            this.values = values;
+            // publish the value before its id, so any thread that sees the id can decode it
+            size = next + 1;
+            ids.put(value, next);
+            return next;
+        }
+    }
+
+    /**
+     * Returns the id of the given string without assigning a new one.
+     *
+     * @param value the string to look up
+     * @return the id of the string, or {@link #NULL} if the string is unknown or null
+     */
+    public int lookup(@Nullable String value) {
+        if (value == null) return NULL;
+        return ids.getOrDefault(value, NULL);
+    }
+
+    /**
+     * Returns the string with the given id.
+     *
+     * @param id the id to decode
+     * @return the string, or null if the id is {@link #NULL}
+     * @throws IndexOutOfBoundsException if no string was assigned the id
+     */
+    public @Nullable String decode(int id) {
+        if (id == NULL) return null;
+        var size = this.size;
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Unknown id: " + id);
+        return values[id];
+    }
+
+    /**
+     * Returns the number of distinct strings in this dictionary.
+     *
+     * @return the number of assigned ids
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,49 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.Cidr;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+/**
+ * Measures random lookups in an {@link AsnTable} of about one million disjoint ranges.
+ * <p>
+ * The table is built from random prefixes between /16 and /24, nested within a few hundred /8 to /12
+ * prefixes, which is roughly the shape of a full BGP table. The looked up addresses are uniformly random.
+ */
+public class AsnTableBenchmark {
+    private static final int PREFIXES = 1_000_000;
+    private static final int LOOKUPS = 1 << 24;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        var random = new Random(44);
+        var lines = new StringBuilder(PREFIXES * 24);
+        for (var i = 0; i < 300; i++) {
+            lines.append(Cidr.format((long) random.nextInt(224) << 24)).append('/').append(8 + random.nextInt(5))
+                    .append(' ').append(64512 + i).append('\n');
+        }
+        for (var i = 0; i < PREFIXES; i++) {
+            lines.append(Cidr.format(random.nextInt() & 0xFFFFFFFFL)).append('/').append(16 + random.nextInt(9))
+                    .append(' ').append(1 + random.nextInt(100_000)).append('\n');
+        }
+
+        var start = System.nanoTime();
+        var table = AsnTable.read(new StringReader(lines.toString()));
+        System.out.printf("Loaded %s ranges in %.1fs%n", table.size(), (System.nanoTime() - start) / 1e9);
+
+        var addresses = new int[LOOKUPS];
+        for (var i = 0; i < LOOKUPS; i++) {
+            addresses[i] = random.nextInt();
+        }
+
+        for (var round = 1; round <= ROUNDS; round++) {
+            var hits = 0;
+            start = System.nanoTime();
+            for (var address : addresses) if (table.lookup(address) != null) hits++;
+            var elapsed = System.nanoTime() - start;
+            System.out.printf("Round %s: %.1fns per lookup, %s hits%n", round, (double) elapsed / LOOKUPS, hits);
+        }
+    }
+}
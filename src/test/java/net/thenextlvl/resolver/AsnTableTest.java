@@ -0,0 +1,183 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.Cidr;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsnTableTest {
+    @Test
+    void mostSpecificPrefixWins() throws IOException {
+        var table = read("""
+                10.0.0.0/8    1 Outer
+                10.1.0.0/16   2 Middle
+                10.1.2.0/24   3 Inner
+                10.1.2.128/25 4 Innermost
+                """);
+        assertEquals(1, asn(table, "10.0.0.0"));
+        assertEquals(1, asn(table, "10.0.255.255"));
+        assertEquals(2, asn(table, "10.1.0.0"));
+        assertEquals(2, asn(table, "10.1.1.255"));
+        assertEquals(3, asn(table, "10.1.2.0"));
+        assertEquals(3, asn(table, "10.1.2.127"));
+        assertEquals(4, asn(table, "10.1.2.128"));
+        assertEquals(4, asn(table, "10.1.2.255"));
+        assertEquals(2, asn(table, "10.1.3.0"));
+        assertEquals(1, asn(table, "10.2.0.0"));
+        assertEquals(1, asn(table, "10.255.255.255"));
+        assertNull(lookup(table, "9.255.255.255"));
+        assertNull(lookup(table, "11.0.0.0"));
+    }
+
+    @Test
+    void laterIdenticalPrefixWins() throws IOException {
+        var table = read("""
+                192.0.2.0/24 1 First
+                192.0.2.0/24 2 Second
+                198.51.100.0/24 3 First
+                198.51.100.7/24 4 Second, host bits ignored
+                """);
+        assertEquals(2, asn(table, "192.0.2.0"));
+        assertEquals(2, asn(table, "192.0.2.255"));
+        assertEquals(4, asn(table, "198.51.100.1"));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void rangesCrossingBlockBoundaries() throws IOException {
+        var table = read("""
+                10.2.0.0/15     1
+                10.2.128.0/17   2
+                172.16.0.0/12   3
+                """);
+        assertEquals(1, asn(table, "10.2.0.0"));
+        assertEquals(1, asn(table, "10.2.127.255"));
+        assertEquals(2, asn(table, "10.2.128.0"));
+        assertEquals(2, asn(table, "10.2.255.255"));
+        assertEquals(1, asn(table, "10.3.0.0"));
+        assertEquals(1, asn(table, "10.3.255.255"));
+        assertNull(lookup(table, "10.4.0.0"));
+        assertNull(lookup(table, "10.1.255.255"));
+        for (var block = 16; block < 32; block++) {
+            assertEquals(3, asn(table, "172." + block + ".0.0"));
+            assertEquals(3, asn(table, "172." + block + ".255.255"));
+        }
+        assertNull(lookup(table, "172.32.0.0"));
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    void emptyTable() throws IOException {
+        var table = read("""
+                # nothing but comments, blank lines and IPv6
+
+                2001:db8::/32 64496
+                """);
+        assertEquals(0, table.size());
+        assertNull(table.lookup(0));
+        assertNull(table.lookup(-1));
+        assertNull(lookup(table, "10.0.0.1"));
+    }
+
+    @Test
+    void addressSpaceEdges() throws IOException {
+        var table = read("""
+                0.0.0.0/0          1 Everything
+                255.255.255.255/32 2 Broadcast
+                """);
+        assertEquals(1, table.lookup(0).number());
+        assertEquals(1, table.lookup(0x7FFFFFFF).number());
+        assertEquals(1, table.lookup(0x80000000).number());
+        assertEquals(1, table.lookup(0xFFFFFFFE).number());
+        assertEquals(2, table.lookup(0xFFFFFFFF).number());
+
+        var edges = read("""
+                0.0.0.0/32         1
+                255.255.255.255/32 2
+                """);
+        assertEquals(1, edges.lookup(0).number());
+        assertNull(edges.lookup(1));
+        assertNull(edges.lookup(0xFFFFFFFE));
+        assertEquals(2, edges.lookup(0xFFFFFFFF).number());
+    }
+
+    @Test
+    void parsesAsNumbersAndOrganizations() throws IOException {
+        var table = read("""
+                1.1.1.0/24  13335 CLOUDFLARENET
+                5.9.0.0/16  AS24940   Hetzner Online GmbH
+                8.8.8.0/24  as15169
+                """);
+        assertEquals(new ServerPing.Asn(13335, "CLOUDFLARENET"), lookup(table, "1.1.1.1"));
+        assertEquals(new ServerPing.Asn(24940, "Hetzner Online GmbH"), lookup(table, "5.9.1.2"));
+        assertEquals(new ServerPing.Asn(15169, "AS15169"), lookup(table, "8.8.8.8"));
+        assertNull(table.lookup(InetAddress.getByName("::1")));
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        assertThrows(IOException.class, () -> read("10.0.0.0/8"));
+        assertThrows(IOException.class, () -> read("10.0.0.0/33 1"));
+        assertThrows(IOException.class, () -> read("10.0.0.256/8 1"));
+        assertThrows(IOException.class, () -> read("10.0.0.0/8 ASx"));
+    }
+
+    @Test
+    void matchesLinearScanOfPrefixes() throws IOException {
+        var random = new Random(44);
+        var lines = new StringBuilder();
+        var prefixes = new ArrayList<long[]>();
+        for (var i = 0; i < 2000; i++) {
+            var length = 8 + random.nextInt(25);
+            // cluster the prefixes so that many of them nest or repeat
+            var address = (long) (10 + random.nextInt(3)) << 24 | random.nextInt(1 << 24);
+            var cidr = Cidr.format(address) + "/" + length;
+            var range = Cidr.toRange(cidr);
+            prefixes.add(new long[]{range[0], range[1], i + 1});
+            lines.append(cidr).append(' ').append(i + 1).append('\n');
+        }
+        var table = read(lines.toString());
+
+        for (var i = 0; i < 20000; i++) {
+            var address = i < 4000 ? prefixes.get(i % prefixes.size())[(i / prefixes.size()) % 2]
+                    : (long) (9 + random.nextInt(5)) << 24 | random.nextInt(1 << 24);
+            var expected = expected(prefixes, address);
+            var actual = table.lookup((int) address);
+            assertEquals(expected, actual != null ? actual.number() : 0, Cidr.format(address));
+        }
+    }
+
+    /**
+     * The most specific prefix containing the address, of identical ones the last, or 0 for none.
+     */
+    private static long expected(List<long[]> prefixes, long address) {
+        long[] best = null;
+        for (var prefix : prefixes) {
+            if (address < prefix[0] || address > prefix[1]) continue;
+            if (best == null || prefix[1] - prefix[0] <= best[1] - best[0]) best = prefix;
+        }
+        return best != null ? best[2] : 0;
+    }
+
+    private static AsnTable read(String lines) throws IOException {
+        return AsnTable.read(new StringReader(lines));
+    }
+
+    private static ServerPing.Asn lookup(AsnTable table, String address) {
+        return table.lookup((int) Cidr.parse(address));
+    }
+
+    private static long asn(AsnTable table, String address) {
+        var asn = lookup(table, address);
+        return asn != null ? asn.number() : 0;
+    }
+}
@@ -0,0 +1,28 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactServerPingTest {
+    @Test
+    void sharesRepeatingStringsOnly() {
+        var dictionary = new StringDictionary();
+        for (var i = 0; i < 100; i++) {
+            var json = """
+                    {"version":{"name":"1.21","protocol":767},"players":{"max":20,"online":%s},\
+                    "description":{"text":"Unique server number %s"}}""".formatted(i, i);
+            var ping = CompactServerPing.of(FakeStatusServer.decode(new InetSocketAddress("192.0.2.1", 25565 + i), json), dictionary);
+            assertEquals("1.21", ping.getVersionName());
+            assertEquals(i, ping.getOnlinePlayers());
+            assertEquals(25565 + i, ping.getAddress().getPort());
+            assertEquals("192.0.2.1", ping.getAddress().getAddress().getHostAddress());
+        }
+        // the version name and the guessed brand and mod type, but none of the hundred descriptions
+        assertTrue(dictionary.size() <= 3, "dictionary grew to " + dictionary.size());
+    }
+}
@@ -0,0 +1,120 @@
+package net.thenextlvl.resolver;
+
+import net.thenextlvl.resolver.scanner.SweepCoordinator;
+import net.thenextlvl.resolver.scanner.SweepWorker;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistributedSweepTest {
+    private static final int workers = 4;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        // sweeps 127.0.0.0/22 for a server on port 25565, every loopback address reaches a server bound to 0.0.0.0
+        var port = args.length > 0 ? Integer.parseInt(args[0]) : 25565;
+        var intervals = List.<long[]>of(new long[]{0x7F000000L, 0x7F0003FFL});
+
+        var now = System.currentTimeMillis();
+        try (var coordinator = SweepCoordinator.builder()
+                .intervals(intervals)
+                .chunkSize(64)
+                .leaseTimeout(Duration.ofSeconds(5))
+                .build(new InetSocketAddress("127.0.0.1", 0), ping -> System.out.printf("%s:%s %sms # %s%n",
+                        ping.getAddress().getAddress().getHostAddress(),
+                        ping.getAddress().getPort(),
+                        ping.getPing(),
+                        ServerType.guess(ping)
+                ))
+                .start()) {
+
+            var template = PingOptions.builder(new InetSocketAddress("127.0.0.1", port))
+                    .timeout(500)
+                    .abortiveClose(true)
+                    .build();
+
+            var threads = new ArrayList<Thread>();
+            for (var i = 0; i < workers; i++) {
+                var worker = SweepWorker.builder(template).concurrency(16).build();
+                threads.add(Thread.ofPlatform().name("Worker #" + i).start(() -> {
+                    try {
+                        worker.run(coordinator.getLocalAddress());
+                    } catch (IOException | InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }));
+            }
+
+            while (!coordinator.await(1, TimeUnit.SECONDS)) {
+                System.out.printf("%s/%s chunks swept by %s workers, %s results%n",
+                        coordinator.getCompletedChunks(), coordinator.getTotalChunks(),
+                        coordinator.getWorkers(), coordinator.getResults());
+            }
+            for (var thread : threads) thread.join();
+
+            var time = (System.currentTimeMillis() - now) / 1000d;
+            System.out.printf("Finished sweeping %s chunks in (%ss), %s results%n",
+                    coordinator.getTotalChunks(), time, coordinator.getResults());
+        }
+    }
+
+    @Test
+    public void sweepsEveryAddressDespiteDisconnectingWorker() throws Exception {
+        try (var server = FakeStatusServer.start(InetAddress.getByName("0.0.0.0"), () -> FakeStatusServer.DEFAULT_STATUS)) {
+            var found = ConcurrentHashMap.<InetAddress>newKeySet();
+            var firstResult = new CountDownLatch(1);
+            try (var coordinator = SweepCoordinator.builder()
+                    .intervals(List.<long[]>of(new long[]{0x7F000100L, 0x7F0004FFL}))
+                    .chunkSize(64)
+                    .leaseTimeout(Duration.ofSeconds(30))
+                    .build(new InetSocketAddress("127.0.0.1", 0), ping -> {
+                        found.add(ping.getAddress().getAddress());
+                        firstResult.countDown();
+                    })
+                    .start()) {
+                var template = PingOptions.builder(new InetSocketAddress("127.0.0.1", server.getPort()))
+                        .timeout(2000)
+                        .build();
+
+                // the first worker disconnects in the middle of its chunk, which is then handed to the others
+                var quitter = Thread.ofPlatform().start(() -> run(template, 1, coordinator, ConcurrentHashMap.newKeySet()));
+                assertTrue(firstResult.await(10, TimeUnit.SECONDS));
+                quitter.interrupt();
+                quitter.join();
+
+                var threads = new ArrayList<Thread>();
+                var failures = ConcurrentHashMap.<Throwable>newKeySet();
+                for (var i = 0; i < workers; i++) {
+                    threads.add(Thread.ofPlatform().start(() -> run(template, 8, coordinator, failures)));
+                }
+                assertTrue(coordinator.await(30, TimeUnit.SECONDS));
+                for (var thread : threads) thread.join();
+
+                assertTrue(failures.isEmpty(), failures.toString());
+                assertEquals(coordinator.getTotalChunks(), coordinator.getCompletedChunks());
+                assertEquals(0, coordinator.getMalformed());
+                assertEquals(1024, found.size());
+            }
+        }
+    }
+
+    private static void run(PingOptions template, int concurrency, SweepCoordinator coordinator, Set<Throwable> failures) {
+        try {
+            SweepWorker.builder(template).concurrency(concurrency).build().run(coordinator.getLocalAddress());
+        } catch (InterruptedException ignored) {
+        } catch (IOException e) {
+            failures.add(e);
+        }
+    }
+}
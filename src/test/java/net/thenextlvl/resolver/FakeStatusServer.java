@@ -0,0 +1,132 @@
+package net.thenextlvl.resolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A minimal server answering status requests with a fixed JSON response, for tests.
+ */
+public final class FakeStatusServer implements AutoCloseable {
+    public static final String DEFAULT_STATUS = """
+            {"version":{"name":"1.21","protocol":767},\
+            "players":{"max":20,"online":2,"sample":[\
+            {"name":"jeb_","id":"853c80ef-3c37-49fd-aa49-938b674adae6"},\
+            {"name":"Notch","id":"069a79f44e944726a5befca90e38aaf5"}]},\
+            "description":{"text":"A Minecraft Server"}}""";
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ServerSocket socket;
+    private final Supplier<String> status;
+
+    private FakeStatusServer(ServerSocket socket, Supplier<String> status) {
+        this.socket = socket;
+        this.status = status;
+        Thread.ofPlatform().name("Fake Status Server").daemon().start(this::accept);
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port answering with {@link #DEFAULT_STATUS}.
+     */
+    public static FakeStatusServer start() throws IOException {
+        return start(InetAddress.getLoopbackAddress(), () -> DEFAULT_STATUS);
+    }
+
+    /**
+     * Starts a server on an ephemeral port of the given address answering with the given status.
+     */
+    public static FakeStatusServer start(InetAddress address, Supplier<String> status) throws IOException {
+        return new FakeStatusServer(new ServerSocket(0, 512, address), status);
+    }
+
+    /**
+     * Decodes the given status response as if it was received from the given address.
+     */
+    public static ServerPing decode(InetSocketAddress address, String json) {
+        var options = PingOptions.builder(address).build();
+        return Ping.decode(RawStatus.of(options, json.getBytes(StandardCharsets.UTF_8), 42));
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(socket.getInetAddress(), socket.getLocalPort());
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void accept() {
+        while (!socket.isClosed()) {
+            try {
+                var client = socket.accept();
+                connections.incrementAndGet();
+                Thread.ofVirtual().start(() -> {
+                    try (client) {
+                        respond(new DataInputStream(client.getInputStream()), new DataOutputStream(client.getOutputStream()));
+                    } catch (IOException ignored) {
+                    }
+                });
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void respond(DataInputStream input, DataOutputStream output) throws IOException {
+        input.readFully(new byte[readVarInt(input)]); // handshake
+        readVarInt(input); // status request length
+        readVarInt(input); // status request id
+
+        var json = status.get().getBytes(StandardCharsets.UTF_8);
+        var packet = new ByteArrayOutputStream();
+        var data = new DataOutputStream(packet);
+        writeVarInt(data, 0x00);
+        writeVarInt(data, json.length);
+        data.write(json);
+        writeVarInt(output, packet.size());
+        packet.writeTo(output);
+        output.flush();
+
+        readVarInt(input); // ping request length
+        readVarInt(input); // ping request id
+        var payload = input.readLong();
+        output.writeByte(9);
+        output.writeByte(0x01);
+        output.writeLong(payload);
+        output.flush();
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0, shift = 0;
+        byte read;
+        do {
+            read = input.readByte();
+            value |= (read & 0x7F) << shift;
+            shift += 7;
+        } while ((read & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+}
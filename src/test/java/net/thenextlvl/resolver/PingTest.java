@@ -0,0 +1,98 @@
+package net.thenextlvl.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PingTest {
+    @Test
+    void pingsServer() throws Exception {
+        try (var server = FakeStatusServer.start()) {
+            var ping = Ping.ping(PingOptions.builder(server.getAddress()).build());
+            assertEquals(767, ping.getVersion().getProtocol());
+        }
+    }
+
+    @Test
+    void reportsCancelledTokenAsCancellation() throws Exception {
+        try (var server = FakeStatusServer.start()) {
+            var token = new CancellationToken();
+            token.cancel();
+            assertThrows(PingCancelledException.class, () -> Ping.ping(PingOptions.builder(server.getAddress()).build(), token));
+            assertEquals(0, server.getConnections());
+        }
+    }
+
+    @Test
+    void reportsCancellationDuringReadAsCancellation() throws Exception {
+        try (var server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             var timer = Executors.newSingleThreadScheduledExecutor()) {
+            var options = PingOptions.builder(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()))
+                    .timeout(10_000).build();
+            var token = new CancellationToken();
+            timer.schedule(token::cancel, 200, TimeUnit.MILLISECONDS);
+            var thrown = assertThrows(PingCancelledException.class, () -> Ping.ping(options, token));
+            assertFalse(thrown.getCause() instanceof PingCancelledException);
+        }
+    }
+
+    @Test
+    void reportsTimeoutAsTimeoutNotCancellation() throws Exception {
+        try (var server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            var options = PingOptions.builder(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()))
+                    .timeout(200).build();
+            var token = new CancellationToken();
+            assertThrows(SocketTimeoutException.class, () -> Ping.ping(options, token));
+            assertFalse(token.isCancelled());
+        }
+    }
+
+    @Test
+    void timeoutBoundsWholeReadPhase() throws Exception {
+        try (var server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            // announces a 100-byte status response, then sends one byte of it every 50ms, so no single read stalls
+            Thread.ofVirtual().start(() -> {
+                try (var client = server.accept()) {
+                    var output = client.getOutputStream();
+                    output.write(new byte[]{0x66, 0x00, 0x64});
+                    for (var i = 0; i < 100 && !client.isClosed(); i++) {
+                        output.write(' ');
+                        output.flush();
+                        Thread.sleep(50);
+                    }
+                } catch (Exception ignored) {
+                }
+            });
+            var options = PingOptions.builder(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()))
+                    .timeout(300).build();
+            var start = System.nanoTime();
+            assertThrows(SocketTimeoutException.class, () -> Ping.ping(options));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        }
+    }
+
+    @Test
+    void rejectsResponsesOverMaxResponseSize() throws Exception {
+        var length = FakeStatusServer.DEFAULT_STATUS.getBytes(StandardCharsets.UTF_8).length;
+        try (var server = FakeStatusServer.start()) {
+            var exact = PingOptions.builder(server.getAddress()).maxResponseSize(length).build();
+            assertEquals(767, Ping.ping(exact).getVersion().getProtocol());
+
+            var tooSmall = exact.toBuilder().maxResponseSize(length - 1).build();
+            var exception = assertThrows(ProtocolException.class, () -> Ping.ping(tooSmall));
+            assertTrue(exception.getMessage().contains(length + " bytes"), exception.getMessage());
+        }
+    }
+}
@@ -3,7 +3,6 @@ package net.thenextlvl.resolver;
 import com.velocitypowered.api.network.ProtocolVersion;
 import com.velocitypowered.api.proxy.server.ServerPing;
 import net.thenextlvl.resolver.scanner.AddressResolver;
-import net.thenextlvl.resolver.scanner.ServerScanner;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -30,10 +29,7 @@ public class ResolverTest {
             servers.add(server);
         }
 
-        var pingOptions = new ArrayList<PingOptions>();
-        new AddressResolver(servers).startScan(pingOptions::add);
-
-        new ServerScanner(pingOptions).startScan(ping -> {
+        new AddressResolver(servers).startPing(ping -> {
             var serverType = ServerType.guess(ping);
             var version = Optional.ofNullable(ping.getVersion())
                     .map(ServerPing.Version::getProtocol)
@@ -0,0 +1,71 @@
+package net.thenextlvl.resolver.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UUIDAdapterTest {
+    private static final String DASHED = "853c80ef-3c37-49fd-aa49-938b674adae6";
+    private static final UUID EXPECTED = UUID.fromString(DASHED);
+
+    @Test
+    void decodesDashedFormat() {
+        assertEquals(EXPECTED.getMostSignificantBits(), UUIDAdapter.parseMostSignificantBits(DASHED));
+        assertEquals(EXPECTED.getLeastSignificantBits(), UUIDAdapter.parseLeastSignificantBits(DASHED));
+    }
+
+    @Test
+    void decodesCompactFormat() {
+        var compact = DASHED.replace("-", "");
+        assertEquals(EXPECTED.getMostSignificantBits(), UUIDAdapter.parseMostSignificantBits(compact));
+        assertEquals(EXPECTED.getLeastSignificantBits(), UUIDAdapter.parseLeastSignificantBits(compact));
+    }
+
+    @Test
+    void decodesUppercaseDigits() {
+        var upper = DASHED.toUpperCase();
+        assertEquals(EXPECTED.getMostSignificantBits(), UUIDAdapter.parseMostSignificantBits(upper));
+        assertEquals(EXPECTED.getLeastSignificantBits(), UUIDAdapter.parseLeastSignificantBits(upper.replace("-", "")));
+    }
+
+    @Test
+    void decodesEdgeValues() {
+        for (var uuid : new UUID[]{new UUID(0, 0), new UUID(-1, -1), new UUID(Long.MIN_VALUE, Long.MAX_VALUE)}) {
+            var string = uuid.toString();
+            assertEquals(uuid.getMostSignificantBits(), UUIDAdapter.parseMostSignificantBits(string));
+            assertEquals(uuid.getLeastSignificantBits(), UUIDAdapter.parseLeastSignificantBits(string));
+        }
+    }
+
+    @Test
+    void rejectsBadCharacters() {
+        for (var bad : new String[]{"g", "-", " ", "é", "٠", "０"}) {
+            // place the bad character in every group of both halves
+            for (var index : new int[]{0, 7, 9, 14, 19, 24, 35}) {
+                var uuid = DASHED.substring(0, index) + bad + DASHED.substring(index + 1);
+                assertThrows(IllegalArgumentException.class, () -> {
+                    UUIDAdapter.parseMostSignificantBits(uuid);
+                    UUIDAdapter.parseLeastSignificantBits(uuid);
+                }, uuid);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWrongDashPositions() {
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseMostSignificantBits("853c80e-f3c37-49fd-aa49-938b674adae6"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseLeastSignificantBits("853c80ef-3c37-49fda-a49-938b674adae6"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseMostSignificantBits("853c80ef3c37-49fd-aa49-938b674adae6-"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseMostSignificantBits("853c80ef_3c37_49fd_aa49_938b674adae6"));
+    }
+
+    @Test
+    void rejectsWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseMostSignificantBits(""));
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseMostSignificantBits(DASHED.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> UUIDAdapter.parseLeastSignificantBits(DASHED.replace("-", "") + "0"));
+    }
+}
@@ -0,0 +1,101 @@
+package net.thenextlvl.resolver.index;
+
+import com.google.gson.JsonParseException;
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.RawStatus;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerIndexTest {
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("192.0.2.1", 25565);
+    private static final UUID JEB = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+    private static final UUID NOTCH = UUID.fromString("069a79f4-4e94-4726-a5be-fca90e38aaf5");
+
+    @Test
+    void keepsMostRecentServers() {
+        var index = new PlayerIndex(64);
+        for (var server = 1; server <= PlayerIndex.MAX_SERVERS; server++) index.record(1, 2, server, 100 + server);
+        assertEquals(PlayerIndex.MAX_SERVERS, index.get(1, 2).size());
+
+        // all entries are taken, so the oldest sighting, server 1, makes room
+        index.record(1, 2, 42, 200);
+        var sightings = index.get(1, 2);
+        assertEquals(PlayerIndex.MAX_SERVERS, sightings.size());
+        assertEquals(new PlayerIndex.Sighting(42, 200), sightings.getFirst());
+        assertTrue(sightings.stream().noneMatch(sighting -> sighting.serverId() == 1));
+
+        // a sighting older than every entry is dropped
+        index.record(1, 2, 43, 50);
+        assertTrue(index.get(1, 2).stream().noneMatch(sighting -> sighting.serverId() == 43));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void updatesLastSeenOfKnownServer() {
+        var index = new PlayerIndex(64);
+        index.record(1, 2, 7, 100);
+        index.record(1, 2, 7, 300);
+        index.record(1, 2, 7, 200);
+        assertEquals(List.of(new PlayerIndex.Sighting(7, 300)), index.get(1, 2));
+        assertTrue(index.get(2, 1).isEmpty());
+    }
+
+    @Test
+    void recordsRawStatusLikeDecodedPing() {
+        var raw = new PlayerIndex(64);
+        var decoded = new PlayerIndex(64);
+        assertEquals(2, raw.record(raw(FakeStatusServer.DEFAULT_STATUS), 3, 100));
+        assertEquals(2, decoded.record(FakeStatusServer.decode(ADDRESS, FakeStatusServer.DEFAULT_STATUS), 3, 100));
+
+        for (var player : List.of(JEB, NOTCH)) {
+            var expected = List.of(new PlayerIndex.Sighting(3, 100));
+            assertEquals(expected, raw.get(player.getMostSignificantBits(), player.getLeastSignificantBits()));
+            assertEquals(expected, decoded.get(player.getMostSignificantBits(), player.getLeastSignificantBits()));
+        }
+        var all = new ArrayList<Long>();
+        raw.forEach((high, low, serverId, lastSeen) -> all.add(high));
+        assertEquals(2, all.size());
+    }
+
+    @Test
+    void skipsInvalidSampleIds() {
+        var index = new PlayerIndex(64);
+        var json = """
+                {"description":"x","players":{"max":1,"online":4,"sample":[\
+                {"name":"a","id":"not-a-uuid"},{"name":"b"},{"name":"c","id":null},"d",\
+                {"name":"jeb_","id":"853C80EF3C3749FDAA49938B674ADAE6","extra":[1,{"id":2}]}]},\
+                "version":{"name":"1.21","protocol":767}}""";
+        assertEquals(1, index.record(raw(json), 9, 100));
+        assertEquals(1, index.size());
+        assertEquals(1, index.get(JEB.getMostSignificantBits(), JEB.getLeastSignificantBits()).size());
+    }
+
+    @Test
+    void ignoresStatusWithoutSample() {
+        var index = new PlayerIndex(64);
+        assertEquals(0, index.record(raw("{\"players\":{\"max\":20,\"online\":0}}"), 1, 100));
+        assertEquals(0, index.record(raw("{\"players\":null}"), 1, 100));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rejectsMalformedStatus() {
+        var index = new PlayerIndex(64);
+        assertThrows(JsonParseException.class, () -> index.record(raw("{\"players\":"), 1, 100));
+        assertThrows(JsonParseException.class, () -> index.record(raw("[]"), 1, 100));
+    }
+
+    private static RawStatus raw(String json) {
+        return RawStatus.of(PingOptions.builder(ADDRESS).build(), json.getBytes(StandardCharsets.UTF_8), 42);
+    }
+}
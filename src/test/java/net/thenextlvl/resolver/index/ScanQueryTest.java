@@ -0,0 +1,48 @@
+package net.thenextlvl.resolver.index;
+
+import net.thenextlvl.resolver.CompactServerPing;
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanQueryTest {
+    private static final String WITHOUT_VERSION = """
+            {"players":{"max":20,"online":0},"description":{"text":"No version"}}""";
+
+    @Test
+    void matchesKnownVersionName() {
+        var index = index();
+        var rows = index.query().version("1.21").execute();
+        assertEquals(1, rows.cardinality());
+        assertTrue(rows.contains(0));
+    }
+
+    @Test
+    void unknownVersionNameMatchesNothing() {
+        var index = index();
+        assertEquals(StringDictionary.NULL, index.getDictionary().lookup("1.8.9"));
+        assertTrue(index.query().version("1.8.9").execute().isEmpty());
+        assertTrue(index.query().port(25566).version("1.8.9").execute().isEmpty());
+    }
+
+    @Test
+    void unknownBrandMatchesNothing() {
+        var index = index();
+        assertTrue(index.query().brand("NoSuchBrand").execute().isEmpty());
+    }
+
+    private static ScanIndex index() {
+        var dictionary = new StringDictionary();
+        var builder = ScanIndex.builder(dictionary);
+        builder.add(CompactServerPing.of(FakeStatusServer.decode(
+                new InetSocketAddress("192.0.2.1", 25565), FakeStatusServer.DEFAULT_STATUS), dictionary));
+        builder.add(CompactServerPing.of(FakeStatusServer.decode(
+                new InetSocketAddress("192.0.2.2", 25566), WITHOUT_VERSION), dictionary));
+        return builder.build();
+    }
+}
@@ -0,0 +1,139 @@
+package net.thenextlvl.resolver.query;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A GS4 query server on a loopback UDP port whose answers are scripted by a {@link Handler}.
+ * The handler is only called from the thread of the server.
+ */
+final class FakeQueryServer implements AutoCloseable {
+    static final byte HANDSHAKE = 0x09;
+    static final byte STAT = 0x00;
+
+    private final AtomicInteger handshakes = new AtomicInteger();
+    private final AtomicInteger stats = new AtomicInteger();
+    private final DatagramSocket socket;
+    private final Handler handler;
+    private final Thread thread;
+
+    private FakeQueryServer(Handler handler) throws IOException {
+        this.socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        this.handler = handler;
+        this.thread = Thread.ofPlatform().name("Fake Query Server").daemon().start(this::run);
+    }
+
+    /**
+     * Starts a server passing every request to the given handler.
+     */
+    static FakeQueryServer start(Handler handler) throws IOException {
+        return new FakeQueryServer(handler);
+    }
+
+    /**
+     * Starts a server answering every handshake and full stat request with the given values.
+     */
+    static FakeQueryServer start(Map<String, String> values, List<String> players) throws IOException {
+        return start((server, request) -> {
+            if (request.type() == HANDSHAKE) server.challenge(request, Integer.toString(challenge(request.session())));
+            else if (request.challenge() == challenge(request.session())) server.reply(request, fullStat(values, players));
+        });
+    }
+
+    /**
+     * Returns the challenge token the default handler hands out for the given session.
+     */
+    static int challenge(int session) {
+        return session * 31 + 7;
+    }
+
+    /**
+     * Encodes the payload of a full stat response.
+     */
+    static byte[] fullStat(Map<String, String> values, List<String> players) {
+        var out = new ByteArrayOutputStream();
+        out.writeBytes("splitnum\0\u0080\0".getBytes(StandardCharsets.ISO_8859_1));
+        values.forEach((key, value) -> {
+            out.writeBytes((key + "\0" + value + "\0").getBytes(StandardCharsets.UTF_8));
+        });
+        out.write(0);
+        out.writeBytes("\u0001player_\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        players.forEach(player -> out.writeBytes((player + "\0").getBytes(StandardCharsets.UTF_8)));
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Answers a handshake with the given challenge token.
+     */
+    void challenge(Request request, String token) throws IOException {
+        reply(request, (token + "\0").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Sends a response of the type of the request, echoing its session id.
+     */
+    void reply(Request request, byte[] payload) throws IOException {
+        var data = ByteBuffer.allocate(5 + payload.length).put(request.type()).putInt(request.session()).put(payload).array();
+        socket.send(new DatagramPacket(data, data.length, request.source()));
+    }
+
+    InetSocketAddress getAddress() {
+        return new InetSocketAddress(socket.getLocalAddress(), socket.getLocalPort());
+    }
+
+    int getHandshakes() {
+        return handshakes.get();
+    }
+
+    int getStats() {
+        return stats.get();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        Uninterruptibles.joinUninterruptibly(thread);
+    }
+
+    private void run() {
+        var packet = new DatagramPacket(new byte[1500], 1500);
+        while (!socket.isClosed()) {
+            try {
+                socket.receive(packet);
+                var data = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+                if (data.remaining() < 7 || data.get() != (byte) 0xFE || data.get() != (byte) 0xFD) continue;
+                var type = data.get();
+                var session = data.getInt();
+                var challenge = data.remaining() >= 4 ? data.getInt() : 0;
+                (type == HANDSHAKE ? handshakes : stats).incrementAndGet();
+                handler.handle(this, new Request(type, session, challenge, packet.getSocketAddress()));
+            } catch (IOException e) {
+                if (!socket.isClosed()) throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * A request received by the server. The challenge is 0 for handshakes.
+     */
+    record Request(byte type, int session, int challenge, SocketAddress source) {
+    }
+
+    @FunctionalInterface
+    interface Handler {
+        void handle(FakeQueryServer server, Request request) throws IOException;
+    }
+}
@@ -0,0 +1,188 @@
+package net.thenextlvl.resolver.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryClientTest {
+    private static final Map<String, String> VALUES = Map.of(
+            "hostname", "A Minecraft Server",
+            "numplayers", "2",
+            "maxplayers", "20",
+            "plugins", "Paper on 1.21: WorldEdit 7.3; LuckPerms 5.4");
+
+    @Test
+    void queriesFullStat() throws Exception {
+        try (var server = FakeQueryServer.start(VALUES, List.of("alice", "bob"));
+             var client = QueryClient.builder().timeout(1000).build()) {
+            var response = client.query(server.getAddress()).get(5, TimeUnit.SECONDS);
+            assertEquals("A Minecraft Server", response.getMotd());
+            assertEquals(2, response.getOnlinePlayers());
+            assertEquals(List.of("alice", "bob"), response.getPlayers());
+            assertEquals(List.of("WorldEdit 7.3", "LuckPerms 5.4"), response.getPlugins());
+            assertEquals(server.getAddress(), response.getAddress());
+            assertEquals(1, server.getHandshakes());
+            assertEquals(1, server.getStats());
+        }
+    }
+
+    @Test
+    void matchesOutOfOrderResponsesBySession() throws Exception {
+        var queries = 4;
+        var handshakes = new ArrayList<FakeQueryServer.Request>();
+        var stats = new ArrayList<FakeQueryServer.Request>();
+        // holds back every request until all queries sent one, then answers them in reverse order
+        try (var server = FakeQueryServer.start((fake, request) -> {
+            var pending = request.type() == FakeQueryServer.HANDSHAKE ? handshakes : stats;
+            pending.add(request);
+            if (pending.size() < queries) return;
+            for (var i = pending.size() - 1; i >= 0; i--) {
+                var held = pending.get(i);
+                if (held.type() == FakeQueryServer.HANDSHAKE) {
+                    fake.challenge(held, Integer.toString(FakeQueryServer.challenge(held.session())));
+                } else if (held.challenge() == FakeQueryServer.challenge(held.session())) {
+                    // every session is told its own position, so a mismatch shows up as a duplicate
+                    fake.reply(held, FakeQueryServer.fullStat(Map.of("numplayers", Integer.toString(i),
+                            "session", Integer.toString(held.session())), List.of()));
+                }
+            }
+            pending.clear();
+        }); var client = QueryClient.builder().timeout(2000).retries(0).build()) {
+            var futures = new ArrayList<CompletableFuture<QueryResponse>>();
+            for (var i = 0; i < queries; i++) futures.add(client.query(server.getAddress()));
+
+            var positions = new HashSet<Integer>();
+            var sessions = new HashSet<String>();
+            for (var future : futures) {
+                var response = future.get(5, TimeUnit.SECONDS);
+                positions.add(response.getOnlinePlayers());
+                sessions.add(response.getValues().get("session"));
+            }
+            assertEquals(queries, positions.size());
+            assertEquals(queries, sessions.size());
+            assertEquals(queries, server.getHandshakes());
+            assertEquals(queries, server.getStats());
+        }
+    }
+
+    @Test
+    void retransmitsUnansweredRequests() throws Exception {
+        // drops the first handshake and the first full stat request
+        try (var server = FakeQueryServer.start((fake, request) -> {
+            var count = request.type() == FakeQueryServer.HANDSHAKE ? fake.getHandshakes() : fake.getStats();
+            if (count == 1) return;
+            if (request.type() == FakeQueryServer.HANDSHAKE) {
+                fake.challenge(request, Integer.toString(FakeQueryServer.challenge(request.session())));
+            } else {
+                fake.reply(request, FakeQueryServer.fullStat(VALUES, List.of()));
+            }
+        }); var client = QueryClient.builder().timeout(100).retries(1).build()) {
+            var response = client.query(server.getAddress()).get(5, TimeUnit.SECONDS);
+            assertEquals("A Minecraft Server", response.getMotd());
+            assertEquals(2, server.getHandshakes());
+            assertEquals(2, server.getStats());
+        }
+    }
+
+    @Test
+    void timesOutAfterRetries() throws Exception {
+        try (var server = FakeQueryServer.start((fake, request) -> {
+        }); var client = QueryClient.builder().timeout(50).retries(2).build()) {
+            var start = System.nanoTime();
+            var cause = failure(client.query(server.getAddress()));
+            assertInstanceOf(SocketTimeoutException.class, cause);
+            assertTrue(cause.getMessage().contains("3 attempts"), cause.getMessage());
+            assertEquals(3, server.getHandshakes());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        }
+    }
+
+    @Test
+    void rejectsMalformedChallenge() throws Exception {
+        try (var server = FakeQueryServer.start((fake, request) -> fake.challenge(request, "not a number"));
+             var client = QueryClient.builder().timeout(1000).build()) {
+            var cause = failure(client.query(server.getAddress()));
+            assertInstanceOf(ProtocolException.class, cause);
+            assertEquals(0, server.getStats());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedFullStat() throws Exception {
+        var full = FakeQueryServer.fullStat(VALUES, List.of("alice"));
+        for (var length : new int[]{0, 5, 20}) {
+            try (var server = FakeQueryServer.start((fake, request) -> {
+                if (request.type() == FakeQueryServer.HANDSHAKE) fake.challenge(request, "1");
+                else fake.reply(request, Arrays.copyOf(full, length));
+            }); var client = QueryClient.builder().timeout(1000).build()) {
+                assertInstanceOf(ProtocolException.class, failure(client.query(server.getAddress())), "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void ignoresResponsesFromOtherAddresses() throws Exception {
+        try (var other = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+             var server = FakeQueryServer.start((fake, request) -> {
+                 // a valid answer, but sent from another port than the one that was queried
+                 var data = ByteBuffer.allocate(7).put(request.type()).putInt(request.session()).put((byte) '1').put((byte) 0).array();
+                 other.send(new DatagramPacket(data, data.length, request.source()));
+             }); var client = QueryClient.builder().timeout(100).retries(0).build()) {
+            assertInstanceOf(SocketTimeoutException.class, failure(client.query(server.getAddress())));
+            assertEquals(0, server.getStats());
+        }
+    }
+
+    @Test
+    void releasesSessionsOfQueriesCompletedByTheCaller() throws Exception {
+        try (var silent = FakeQueryServer.start((fake, request) -> {
+        }); var server = FakeQueryServer.start(VALUES, List.of());
+             var client = QueryClient.builder().timeout(50).retries(1000).maxInFlight(1).build()) {
+            for (var i = 0; i < 3; i++) {
+                var abandoned = client.query(silent.getAddress());
+                assertThrows(ExecutionException.class, () -> abandoned.orTimeout(20, TimeUnit.MILLISECONDS).get());
+            }
+            var response = client.query(server.getAddress()).get(5, TimeUnit.SECONDS);
+            assertEquals("A Minecraft Server", response.getMotd());
+        }
+    }
+
+    @Test
+    void closeFailsPendingQueries() throws Exception {
+        try (var server = FakeQueryServer.start((fake, request) -> {
+        })) {
+            var client = QueryClient.builder().timeout(10_000).maxInFlight(1).build();
+            var inFlight = client.query(server.getAddress());
+            var waiting = client.query(server.getAddress());
+            client.close();
+
+            assertInstanceOf(ClosedChannelException.class, failure(inFlight));
+            assertInstanceOf(ClosedChannelException.class, failure(waiting));
+            assertInstanceOf(ClosedChannelException.class, failure(client.query(server.getAddress())));
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<QueryResponse> future) throws Exception {
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return exception.getCause();
+    }
+}
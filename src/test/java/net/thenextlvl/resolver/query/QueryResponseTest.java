@@ -0,0 +1,88 @@
+package net.thenextlvl.resolver.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryResponseTest {
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("192.0.2.1", 25565);
+
+    @Test
+    void parsesFullStat() throws ProtocolException {
+        var values = new LinkedHashMap<String, String>();
+        values.put("hostname", "§aA Minecraft Server");
+        values.put("gametype", "SMP");
+        values.put("game_id", "MINECRAFT");
+        values.put("version", "1.21");
+        values.put("plugins", "Paper on 1.21: WorldEdit 7.3; LuckPerms 5.4");
+        values.put("map", "world");
+        values.put("numplayers", "2");
+        values.put("maxplayers", "20");
+        values.put("hostport", "25565");
+        values.put("hostip", "127.0.0.1");
+        values.put("custom", "kept");
+
+        var response = parse(FakeQueryServer.fullStat(values, List.of("alice", "bob")));
+        assertEquals("§aA Minecraft Server", response.getMotd());
+        assertEquals("SMP", response.getGameType());
+        assertEquals("MINECRAFT", response.getGameId());
+        assertEquals("1.21", response.getVersion());
+        assertEquals("Paper on 1.21", response.getServerMod());
+        assertEquals(List.of("WorldEdit 7.3", "LuckPerms 5.4"), response.getPlugins());
+        assertEquals("world", response.getMap());
+        assertEquals(2, response.getOnlinePlayers());
+        assertEquals(20, response.getMaxPlayers());
+        assertEquals(25565, response.getHostPort());
+        assertEquals("127.0.0.1", response.getHostIp());
+        assertEquals(List.of("alice", "bob"), response.getPlayers());
+        assertEquals(List.copyOf(values.keySet()), List.copyOf(response.getValues().keySet()));
+        assertEquals(ADDRESS, response.getAddress());
+        assertEquals(42, response.getLatency());
+    }
+
+    @Test
+    void toleratesMissingOptionalParts() throws ProtocolException {
+        var full = FakeQueryServer.fullStat(Map.of("numplayers", " 3 ", "maxplayers", "lots", "plugins", ""), List.of());
+        // cut off the player section entirely
+        var response = parse(Arrays.copyOf(full, full.length - 11));
+        assertEquals(3, response.getOnlinePlayers());
+        assertEquals(0, response.getMaxPlayers());
+        assertEquals(0, response.getHostPort());
+        assertEquals("", response.getMotd());
+        assertNull(response.getServerMod());
+        assertEquals(List.of(), response.getPlugins());
+        assertEquals(List.of(), response.getPlayers());
+    }
+
+    @Test
+    void reportsServerModWithoutPlugins() throws ProtocolException {
+        var response = parse(FakeQueryServer.fullStat(Map.of("plugins", "Vanilla 1.21"), List.of()));
+        assertEquals("Vanilla 1.21", response.getServerMod());
+        assertEquals(List.of(), response.getPlugins());
+    }
+
+    @Test
+    void rejectsTruncatedPayloads() {
+        var full = FakeQueryServer.fullStat(Map.of("hostname", "A Minecraft Server"), List.of("alice"));
+        assertThrows(ProtocolException.class, () -> parse(new byte[0]));
+        assertThrows(ProtocolException.class, () -> parse(Arrays.copyOf(full, 10)));
+        // ends within the value of the first key
+        assertThrows(ProtocolException.class, () -> parse(Arrays.copyOf(full, 25)));
+        // ends before the terminator of the key value section
+        assertThrows(ProtocolException.class, () -> parse(Arrays.copyOf(full, 39)));
+    }
+
+    private static QueryResponse parse(byte[] payload) throws ProtocolException {
+        return QueryResponse.parse(ADDRESS, 42, ByteBuffer.wrap(payload));
+    }
+}
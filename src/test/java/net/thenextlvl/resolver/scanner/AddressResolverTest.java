@@ -0,0 +1,83 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressResolverTest {
+    @Test
+    void derivesOptionsFromTemplate() throws InterruptedException {
+        var template = PingOptions.builder(InetSocketAddress.createUnresolved("template.invalid", 1))
+                .timeout(1234)
+                .deadline(4321)
+                .tcpNoDelay(true)
+                .receiveBufferSize(8192)
+                .build();
+        var options = new CopyOnWriteArrayList<PingOptions>();
+        new AddressResolver(List.of("127.0.0.1:25570"), AddressResolver.Resolution.SRV_FIRST, template)
+                .startScan(options::add);
+
+        assertEquals(1, options.size());
+        var derived = options.getFirst();
+        assertEquals(25570, derived.getAddress().getPort());
+        assertEquals("127.0.0.1", derived.getAddress().getHostString());
+        assertEquals(1234, derived.getTimeout());
+        assertEquals(4321, derived.getDeadline());
+        assertTrue(derived.isTcpNoDelay());
+        assertEquals(8192, derived.getReceiveBufferSize());
+    }
+
+    @Test
+    void keepsDefaultsWithoutTemplate() throws InterruptedException {
+        var options = new CopyOnWriteArrayList<PingOptions>();
+        new AddressResolver(List.of("127.0.0.1:25570")).startScan(options::add);
+
+        assertEquals(1, options.size());
+        assertEquals(1000, options.getFirst().getTimeout());
+        assertFalse(options.getFirst().isTcpNoDelay());
+    }
+
+    @Test
+    void reportsMalformedResponseOfDirectAttempt() throws Exception {
+        try (var server = FakeStatusServer.start(InetAddress.getLoopbackAddress(), () -> "{\"version\":")) {
+            var failures = new CopyOnWriteArrayList<Exception>();
+            new AddressResolver(List.of("127.0.0.1:" + server.getPort()), AddressResolver.Resolution.HAPPY_EYEBALLS)
+                    .startPing(ping -> {
+                    }, (options, e) -> failures.add(e));
+
+            assertEquals(1, failures.size());
+            assertTrue(failures.getFirst() instanceof ProtocolException, failures.toString());
+        }
+    }
+
+    @Test
+    void pingsHostnamesSharingAnEndpointOnce() throws Exception {
+        var localhost = InetAddress.getByName("localhost");
+        try (var server = FakeStatusServer.start(localhost, () -> FakeStatusServer.DEFAULT_STATUS)) {
+            var ip = localhost.getHostAddress();
+            var hostnames = new CopyOnWriteArrayList<String>();
+            var failures = new CopyOnWriteArrayList<Exception>();
+            new AddressResolver(List.of("localhost:" + server.getPort(), ip + ":" + server.getPort()))
+                    .startPing(ping -> {
+                        assertEquals(localhost, ping.getAddress().getAddress());
+                        assertEquals(server.getPort(), ping.getAddress().getPort());
+                        hostnames.add(ping.getAddress().getHostString());
+                    }, (options, e) -> failures.add(e));
+
+            assertTrue(failures.isEmpty(), failures.toString());
+            assertEquals(1, server.getConnections());
+            assertEquals(2, hostnames.size());
+            assertTrue(hostnames.containsAll(List.of("localhost", ip)), hostnames.toString());
+        }
+    }
+}
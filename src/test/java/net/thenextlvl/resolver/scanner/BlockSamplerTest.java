@@ -0,0 +1,79 @@
+package net.thenextlvl.resolver.scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockSamplerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void samplesArePermutationOfHosts() {
+        var sampler = new BlockSampler(256);
+        for (var block : new int[]{0, 1, 0xC0A801, 0x123456, BlockSampler.BLOCKS - 1}) {
+            var seen = new boolean[256];
+            for (var index = 0; index < 256; index++) {
+                var host = sampler.sampleHost(block, index);
+                assertFalse(seen[host], "host " + host + " sampled twice in block " + block);
+                seen[host] = true;
+            }
+        }
+    }
+
+    @Test
+    void isSampleInvertsSampleHost() {
+        var sampler = new BlockSampler(16);
+        for (var block : new int[]{0, 7, 0xC0A801, BlockSampler.BLOCKS - 1}) {
+            var samples = 0;
+            for (var index = 0; index < 256; index++) {
+                var address = (long) block << 8 | sampler.sampleHost(block, index);
+                assertEquals(index < 16, sampler.isSample(address), "index " + index + " of block " + block);
+            }
+            for (var host = 0; host < 256; host++) if (sampler.isSample((long) block << 8 | host)) samples++;
+            assertEquals(16, samples);
+        }
+    }
+
+    @Test
+    void recordsProbesAndHits() {
+        var sampler = new BlockSampler(4);
+        sampler.record(0x01020304L, false);
+        sampler.record(0x01020305L, true);
+        sampler.record(0xFFFFFFFFL, false);
+        assertEquals(2, sampler.getProbes(0x010203));
+        assertEquals(1, sampler.getHits(0x010203));
+        assertTrue(sampler.isActive(0x010203));
+        assertFalse(sampler.isActive(0xFFFFFF));
+        assertEquals(1, sampler.countActive());
+        assertEquals(1, sampler.countHitBlocks());
+    }
+
+    @Test
+    void savesAndLoadsActiveBlocks() throws Exception {
+        var sampler = new BlockSampler(4);
+        sampler.record(0x00000001L, true);
+        sampler.record(0x01020304L, true);
+        sampler.record(0x05060708L, false);
+        sampler.record(0xFFFFFF01L, true);
+
+        var file = directory.resolve("blocks.bin");
+        sampler.save(file);
+        assertEquals(BlockSampler.BLOCKS / 8, Files.size(file));
+
+        var loaded = BlockSampler.load(file, 8);
+        assertEquals(8, loaded.getSampleSize());
+        assertTrue(loaded.isActive(0));
+        assertTrue(loaded.isActive(0x010203));
+        assertTrue(loaded.isActive(0xFFFFFF));
+        assertFalse(loaded.isActive(0x050607));
+        assertEquals(3, loaded.countActive());
+        assertEquals(0, loaded.countHitBlocks());
+    }
+}
@@ -0,0 +1,65 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IPv4ScannerTest {
+    private static final long LOOPBACK = 0x7F000001L;
+
+    @Test
+    void probeReportsAnsweringServer() throws Exception {
+        try (var server = FakeStatusServer.start()) {
+            assertTrue(IPv4Scanner.probe(template(server.getPort()), LOOPBACK));
+            assertEquals(1, server.getConnections());
+        }
+    }
+
+    @Test
+    void probeCountsMalformedResponseAsHit() throws Exception {
+        try (var server = FakeStatusServer.start(InetAddress.getLoopbackAddress(), () -> "{\"version\":")) {
+            assertTrue(IPv4Scanner.probe(template(server.getPort()), LOOPBACK));
+        }
+    }
+
+    @Test
+    void probeReportsClosedPortAsMiss() throws Exception {
+        int port;
+        try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        assertFalse(IPv4Scanner.probe(template(port), LOOPBACK));
+    }
+
+    @Test
+    void proberRunsProbesConcurrently() throws Exception {
+        // accepts connections into its backlog but never answers, so every probe waits for its timeout
+        try (var silent = new ServerSocket(0, 512, InetAddress.getLoopbackAddress())) {
+            var template = PingOptions.builder(InetSocketAddress.createUnresolved("0.0.0.0", silent.getLocalPort())).timeout(300).build();
+            var sampler = new BlockSampler(1);
+            var start = System.nanoTime();
+            try (var prober = new IPv4Scanner.Prober(template, 64)) {
+                for (var i = 0; i < 64; i++) prober.submit(LOOPBACK, sampler);
+                prober.awaitIdle();
+                assertEquals(64, sampler.getProbes((int) (LOOPBACK >>> 8)));
+            }
+            // one after another, the probes would take 64 timeouts of 300ms
+            var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsed < 5000, "took " + elapsed + "ms");
+            assertEquals(0, sampler.getHits((int) (LOOPBACK >>> 8)));
+        }
+    }
+
+    private static PingOptions template(int port) {
+        return PingOptions.builder(InetSocketAddress.createUnresolved("0.0.0.0", port)).timeout(1000).build();
+    }
+}
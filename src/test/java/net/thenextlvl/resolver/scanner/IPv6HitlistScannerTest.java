@@ -0,0 +1,167 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import net.thenextlvl.resolver.ServerPing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IPv6HitlistScannerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void parsesFullNotation() {
+        assertParses("2001:0db8:0000:0000:0000:ff00:0042:8329", 0x20010db800000000L, 0x0000ff0000428329L);
+        assertParses("2001:db8:0:0:0:ff00:42:8329", 0x20010db800000000L, 0x0000ff0000428329L);
+        assertParses("FE80:0:0:0:0:0:0:1", 0xfe80000000000000L, 1);
+    }
+
+    @Test
+    public void parsesCompressedNotation() {
+        assertParses("::", 0, 0);
+        assertParses("::1", 0, 1);
+        assertParses("2001:db8::", 0x20010db800000000L, 0);
+        assertParses("2001:db8::ff00:42:8329", 0x20010db800000000L, 0x0000ff0000428329L);
+        assertParses("fe80::1:2", 0xfe80000000000000L, 0x0000000000010002L);
+        assertParses("1:2:3:4:5:6:7::", 0x0001000200030004L, 0x0005000600070000L);
+    }
+
+    @Test
+    public void parsesEmbeddedIPv4() {
+        assertParses("::ffff:192.0.2.128", 0, 0x0000ffffc0000280L);
+        assertParses("64:ff9b::203.0.113.5", 0x0064ff9b00000000L, 0x00000000cb007105L);
+        assertParses("0:0:0:0:0:ffff:1.2.3.4", 0, 0x0000ffff01020304L);
+    }
+
+    @Test
+    public void matchesInetAddress() throws IOException {
+        for (var text : new String[]{"2a01:4f8:c17:1::5", "::ffff:10.0.0.1", "1::", "abcd:ef01:2345:6789:abcd:ef01:2345:6789"}) {
+            var bytes = InetAddress.getByName(text).getAddress();
+            if (bytes.length == 4) bytes = Inet6Address.getByAddress(null, mapped(bytes), null).getAddress();
+            var high = 0L;
+            var low = 0L;
+            for (var i = 0; i < 8; i++) {
+                high = high << 8 | (bytes[i] & 0xFF);
+                low = low << 8 | (bytes[i + 8] & 0xFF);
+            }
+            assertParses(text, high, low);
+        }
+    }
+
+    @Test
+    public void rejectsZoneIds() {
+        assertRejects("fe80::1%eth0");
+        assertRejects("fe80::1%1");
+        assertRejects("::1%");
+    }
+
+    @Test
+    public void rejectsBadInput() {
+        assertRejects("");
+        assertRejects(":");
+        assertRejects(":::");
+        assertRejects("1::2::3");
+        assertRejects("1:2:3:4:5:6:7:8:9");
+        assertRejects("1:2:3:4:5:6:7");
+        assertRejects("1:2:3:4:5:6:7:8::");
+        assertRejects("12345::");
+        assertRejects("g::1");
+        assertRejects("1:2:3:4:5:6:7:");
+        assertRejects(":1:2:3:4:5:6:7");
+        assertRejects("::1.2.3");
+        assertRejects("::1.2.3.256");
+        assertRejects("::1.2.3.4.5");
+        assertRejects("1:2:3:4:5:6:7:1.2.3.4");
+        assertRejects("192.0.2.1");
+    }
+
+    @Test
+    public void streamsHitlist() throws IOException, InterruptedException {
+        try (var server = FakeStatusServer.start(InetAddress.getByName("::1"), () -> FakeStatusServer.DEFAULT_STATUS)) {
+            var hitlist = directory.resolve("hitlist.txt");
+            Files.writeString(hitlist, """
+                    # loopback, listed three times
+                    ::1
+                    0:0:0:0:0:0:0:1
+                    ::1   # again
+                    not an address
+                    
+                    ::2
+                    """, StandardCharsets.US_ASCII);
+
+            var template = PingOptions.builder(new InetSocketAddress("::1", server.getPort())).timeout(1000).build();
+            var scanner = IPv6HitlistScanner.builder(hitlist, IPv6HitlistScanner.Format.TEXT, template)
+                    .concurrency(2)
+                    .expectedSize(1)
+                    .build();
+
+            var results = new ConcurrentLinkedQueue<ServerPing>();
+            var failures = new ConcurrentLinkedQueue<PingOptions>();
+            assertTrue(scanner.startScan(results::add, (options, e) -> failures.add(options), ScanLimits.none()));
+
+            assertEquals(1, results.size());
+            assertEquals(1, failures.size());
+            assertEquals(2, scanner.getDuplicates());
+            assertEquals(1, scanner.getMalformed());
+            assertEquals(1, server.getConnections());
+        }
+    }
+
+    @Test
+    public void readsBinaryHitlist() throws IOException, InterruptedException {
+        try (var server = FakeStatusServer.start(InetAddress.getByName("::1"), () -> FakeStatusServer.DEFAULT_STATUS)) {
+            var loopback = InetAddress.getByName("::1").getAddress();
+            var hitlist = directory.resolve("hitlist.bin");
+            // two complete addresses and a truncated trailing one
+            var data = new byte[16 * 2 + 7];
+            System.arraycopy(loopback, 0, data, 0, 16);
+            System.arraycopy(loopback, 0, data, 16, 16);
+            Files.write(hitlist, data);
+
+            var template = PingOptions.builder(new InetSocketAddress("::1", server.getPort())).timeout(1000).build();
+            var scanner = new IPv6HitlistScanner(hitlist, IPv6HitlistScanner.Format.BINARY, template);
+            var results = new ConcurrentLinkedQueue<ServerPing>();
+            scanner.startScan(results::add, (options, e) -> {
+            });
+
+            assertEquals(1, results.size());
+            assertEquals(1, scanner.getDuplicates());
+            assertEquals(1, scanner.getMalformed());
+        }
+    }
+
+    private static byte[] mapped(byte[] ipv4) {
+        var bytes = new byte[16];
+        bytes[10] = (byte) 0xFF;
+        bytes[11] = (byte) 0xFF;
+        System.arraycopy(ipv4, 0, bytes, 12, 4);
+        return bytes;
+    }
+
+    private static void assertParses(String text, long high, long low) {
+        var chars = ("  " + text + "  ").getBytes(StandardCharsets.US_ASCII);
+        var out = new long[2];
+        assertTrue(IPv6HitlistScanner.parseIPv6(chars, 2, chars.length - 2, out), text);
+        assertArrayEquals(new long[]{high, low}, out);
+    }
+
+    private static void assertRejects(String text) {
+        var chars = text.getBytes(StandardCharsets.US_ASCII);
+        assertFalse(IPv6HitlistScanner.parseIPv6(chars, 0, chars.length, new long[2]), text);
+    }
+}
@@ -0,0 +1,67 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RePingSchedulerTest {
+    @Test
+    void reportsMalformedResponsesAndKeepsScheduling() throws Exception {
+        try (var server = FakeStatusServer.start(InetAddress.getLoopbackAddress(), () -> "{\"version\":")) {
+            var failures = new CopyOnWriteArrayList<Exception>();
+            var latch = new CountDownLatch(2);
+            var scheduler = RePingScheduler.builder()
+                    .freshness(Duration.ofMillis(50))
+                    .maxBackoff(Duration.ofMillis(100))
+                    .build(ping -> {
+                    }, (options, e) -> {
+                        failures.add(e);
+                        latch.countDown();
+                    });
+            try (scheduler) {
+                scheduler.add(PingOptions.builder(server.getAddress()).build());
+                scheduler.start();
+                assertTrue(latch.await(10, TimeUnit.SECONDS), "malformed response did not reschedule the target");
+            }
+            assertTrue(failures.stream().allMatch(ProtocolException.class::isInstance), failures.toString());
+        }
+    }
+
+    @Test
+    void pingsServersRepeatedly() throws Exception {
+        try (var server = FakeStatusServer.start()) {
+            var latch = new CountDownLatch(3);
+            var scheduler = RePingScheduler.builder()
+                    .freshness(Duration.ofMillis(50))
+                    .build(ping -> {
+                        assertEquals(767, ping.getVersion().getProtocol());
+                        latch.countDown();
+                    }, (options, e) -> {
+                    });
+            try (scheduler) {
+                scheduler.add(PingOptions.builder(server.getAddress()).build());
+                scheduler.start();
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void rejectsBackoffShorterThanFreshness() {
+        var builder = RePingScheduler.builder().freshness(Duration.ofMinutes(10)).maxBackoff(Duration.ofMinutes(5));
+        assertThrows(IllegalArgumentException.class, () -> builder.build(ping -> {
+        }, (options, e) -> {
+        }));
+    }
+}
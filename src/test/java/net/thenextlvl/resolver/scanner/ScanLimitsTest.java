@@ -0,0 +1,32 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.ServerPing;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanLimitsTest {
+    private static final ServerPing PING = FakeStatusServer.decode(new InetSocketAddress("192.0.2.1", 25565), FakeStatusServer.DEFAULT_STATUS);
+
+    @Test
+    void stopAfterCountsEveryScanSeparately() {
+        var limits = ScanLimits.builder().stopAfter(2, ping -> true).build();
+        for (var scan = 0; scan < 3; scan++) {
+            var stopWhen = limits.getStopWhen();
+            assertFalse(stopWhen.test(PING), "scan " + scan);
+            assertTrue(stopWhen.test(PING), "scan " + scan);
+        }
+    }
+
+    @Test
+    void toBuilderKeepsFreshCounters() {
+        var limits = ScanLimits.builder().stopAfter(2, ping -> true).build();
+        limits.getStopWhen().test(PING);
+        var copy = limits.toBuilder().build();
+        assertFalse(copy.getStopWhen().test(PING));
+    }
+}
@@ -0,0 +1,100 @@
+package net.thenextlvl.resolver.scanner;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.PingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StagedScannerTest {
+    @Test
+    void invokesEveryCallbackOnDecodeThreads() throws Exception {
+        int closedPort;
+        try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+        try (var server = FakeStatusServer.start();
+             var malformed = FakeStatusServer.start(InetAddress.getLoopbackAddress(), () -> "{\"version\":")) {
+            var options = new ArrayList<PingOptions>();
+            for (var i = 0; i < 10; i++) {
+                options.add(PingOptions.builder(server.getAddress()).build());
+                options.add(PingOptions.builder(malformed.getAddress()).build());
+                options.add(PingOptions.builder(new InetSocketAddress(InetAddress.getLoopbackAddress(), closedPort)).build());
+            }
+
+            var threads = ConcurrentHashMap.<String>newKeySet();
+            var successes = new AtomicInteger();
+            var failures = new CopyOnWriteArrayList<Exception>();
+            var scanner = StagedScanner.builder().ioThreads(4).decodeThreads(2).handoffCapacity(2).build(options);
+            scanner.startScan(ping -> {
+                threads.add(Thread.currentThread().getName());
+                successes.incrementAndGet();
+            }, (target, e) -> {
+                threads.add(Thread.currentThread().getName());
+                failures.add(e);
+            });
+
+            assertEquals(10, successes.get());
+            assertEquals(20, failures.size());
+            assertEquals(10, failures.stream().filter(ProtocolException.class::isInstance).count());
+            assertEquals(20, scanner.getFailed());
+            assertEquals(0, scanner.getQueued());
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("Ping Decode #")), threads.toString());
+        }
+    }
+
+    @Test
+    void survivesThrowingCallbacks() throws Exception {
+        int closedPort;
+        try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+        var previous = Thread.getDefaultUncaughtExceptionHandler();
+        var reported = new AtomicInteger();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.incrementAndGet());
+        try (var server = FakeStatusServer.start()) {
+            var options = new ArrayList<PingOptions>();
+            for (var i = 0; i < 20; i++) {
+                options.add(PingOptions.builder(server.getAddress()).build());
+                options.add(PingOptions.builder(new InetSocketAddress(InetAddress.getLoopbackAddress(), closedPort)).build());
+            }
+
+            var successes = new AtomicInteger();
+            var failures = new AtomicInteger();
+            // a single decoder and a tiny handoff queue would stall the I/O threads for good if the decoder died
+            var scanner = StagedScanner.builder().ioThreads(4).decodeThreads(1).handoffCapacity(1).build(options);
+            var scan = Thread.ofPlatform().start(() -> {
+                try {
+                    scanner.startScan(ping -> {
+                        successes.incrementAndGet();
+                        throw new IllegalStateException("success callback failed");
+                    }, (target, e) -> {
+                        failures.incrementAndGet();
+                        throw new IllegalStateException("exception callback failed");
+                    });
+                } catch (InterruptedException ignored) {
+                }
+            });
+            scan.join(10_000);
+
+            assertFalse(scan.isAlive(), "scan did not finish");
+            assertEquals(20, successes.get());
+            assertEquals(20, failures.get());
+            assertEquals(40, reported.get());
+            assertEquals(0, scanner.getQueued());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package net.thenextlvl.resolver.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SweepCoordinatorTest {
+    private static final List<long[]> INTERVALS = List.<long[]>of(new long[]{0x0A000000L, 0x0A0003FFL});
+
+    @Test
+    void leasesAndCompletesEveryChunkOnce() throws Exception {
+        try (var coordinator = coordinator()) {
+            var leased = new ConcurrentHashMap<Integer, AtomicInteger>();
+            var workers = new ArrayList<Thread>();
+            for (var i = 0; i < 4; i++) {
+                workers.add(Thread.ofPlatform().start(() -> sweep(coordinator, leased)));
+            }
+            assertTrue(coordinator.await(10, TimeUnit.SECONDS));
+            for (var worker : workers) worker.join();
+
+            assertEquals(16, coordinator.getTotalChunks());
+            assertEquals(16, coordinator.getCompletedChunks());
+            assertEquals(16, leased.size());
+            leased.forEach((chunk, count) -> assertEquals(1, count.get(), "chunk " + chunk));
+        }
+    }
+
+    @Test
+    void reassignsChunkOfDisconnectedWorker() throws Exception {
+        try (var coordinator = coordinator()) {
+            int abandoned;
+            try (var worker = new FakeWorker(coordinator)) {
+                abandoned = worker.request();
+            }
+
+            var leased = new ConcurrentHashMap<Integer, AtomicInteger>();
+            sweep(coordinator, leased);
+            assertTrue(coordinator.await(10, TimeUnit.SECONDS));
+
+            assertEquals(16, coordinator.getCompletedChunks());
+            assertEquals(16, leased.size());
+            assertEquals(1, leased.get(abandoned).get());
+            leased.forEach((chunk, count) -> assertEquals(1, count.get(), "chunk " + chunk));
+        }
+    }
+
+    @Test
+    void ignoresCompletionFromWorkerWithoutLease() throws Exception {
+        try (var coordinator = coordinator();
+             var owner = new FakeWorker(coordinator);
+             var other = new FakeWorker(coordinator)) {
+            var chunk = owner.request();
+            other.complete(chunk);
+            other.request(); // the coordinator handles messages of a connection in order
+            assertEquals(0, coordinator.getCompletedChunks());
+
+            owner.complete(chunk);
+            owner.request();
+            assertEquals(1, coordinator.getCompletedChunks());
+        }
+    }
+
+    private static SweepCoordinator coordinator() throws IOException {
+        return SweepCoordinator.builder()
+                .intervals(INTERVALS)
+                .chunkSize(64)
+                .leaseTimeout(Duration.ofSeconds(30))
+                .build(new InetSocketAddress("127.0.0.1", 0), ping -> {
+                })
+                .start();
+    }
+
+    /**
+     * Requests and completes chunks until the coordinator has none left, counting every lease.
+     */
+    private static void sweep(SweepCoordinator coordinator, Map<Integer, AtomicInteger> leased) {
+        try (var worker = new FakeWorker(coordinator)) {
+            for (int chunk; (chunk = worker.request()) != -1; ) {
+                if (chunk == -2) continue;
+                leased.computeIfAbsent(chunk, ignored -> new AtomicInteger()).incrementAndGet();
+                worker.complete(chunk);
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * A worker speaking the sweep protocol directly, without pinging anything.
+     */
+    private static final class FakeWorker implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        private FakeWorker(SweepCoordinator coordinator) throws IOException {
+            this.socket = new Socket();
+            socket.connect(coordinator.getLocalAddress());
+            this.input = new DataInputStream(socket.getInputStream());
+            this.output = new DataOutputStream(socket.getOutputStream());
+            output.writeInt(SweepProtocol.MAGIC);
+            output.writeInt(SweepProtocol.VERSION);
+        }
+
+        /**
+         * Requests a chunk.
+         *
+         * @return the chunk, -1 if the sweep is done, or -2 after waiting for a retry
+         */
+        private int request() throws IOException, InterruptedException {
+            output.writeByte(SweepProtocol.REQUEST);
+            output.flush();
+            var type = input.readByte();
+            switch (type) {
+                case SweepProtocol.CHUNK -> {
+                    var chunk = input.readInt();
+                    input.readLong();
+                    input.readLong();
+                    input.readInt();
+                    return chunk;
+                }
+                case SweepProtocol.RETRY -> {
+                    Thread.sleep(Math.min(50, input.readInt()));
+                    return -2;
+                }
+                case SweepProtocol.DONE -> {
+                    return -1;
+                }
+                default -> throw new IOException("Unknown message type " + type);
+            }
+        }
+
+        private void complete(int chunk) throws IOException {
+            output.writeByte(SweepProtocol.COMPLETE);
+            output.writeInt(chunk);
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package net.thenextlvl.resolver.sink;
+
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.ServerPing;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchingResultSinkTest {
+    private static final ServerPing PING = FakeStatusServer.decode(new InetSocketAddress("192.0.2.1", 25565), FakeStatusServer.DEFAULT_STATUS);
+
+    @Test
+    public void accountsForEveryResultRacingClose() throws InterruptedException, IOException {
+        for (var round = 0; round < 20; round++) {
+            var written = new AtomicLong();
+            var sink = BatchingResultSink.of(batch -> written.addAndGet(batch.size()), SinkOptions.builder()
+                    .capacity(Integer.MAX_VALUE)
+                    .flushSize(64)
+                    .build());
+
+            var accepted = new AtomicLong();
+            var start = new CountDownLatch(1);
+            var threads = new ArrayList<Thread>();
+            for (var i = 0; i < 4; i++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (var j = 0; j < 50_000; j++) {
+                        sink.accept(PING);
+                        accepted.incrementAndGet();
+                    }
+                }));
+            }
+
+            start.countDown();
+            Thread.sleep(round % 5);
+            sink.close();
+            for (var thread : threads) thread.join();
+
+            assertEquals(accepted.get(), written.get() + sink.getDropped(), "round " + round);
+            assertEquals(0, sink.getPending());
+        }
+    }
+
+    @Test
+    public void flushesOnInterval() throws InterruptedException, IOException {
+        var written = new CountDownLatch(1);
+        try (var sink = BatchingResultSink.of(batch -> written.countDown(), SinkOptions.builder()
+                .flushSize(1000)
+                .flushInterval(Duration.ofMillis(20))
+                .build())) {
+            sink.accept(PING);
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void dropsWhenFull() throws IOException {
+        var gate = new CountDownLatch(1);
+        var written = new AtomicLong();
+        var sink = BatchingResultSink.of(batch -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAndGet(batch.size());
+        }, SinkOptions.builder().capacity(10).flushSize(1).build());
+
+        for (var i = 0; i < 100; i++) sink.accept(PING);
+        gate.countDown();
+        sink.close();
+        assertEquals(100, written.get() + sink.getDropped());
+        assertTrue(sink.getDropped() >= 89);
+    }
+
+    @Test
+    public void concurrentClosesCloseWriterOnce() throws InterruptedException {
+        for (var round = 0; round < 50; round++) {
+            var closes = new AtomicInteger();
+            var sink = new BatchingResultSink(new BatchWriter() {
+                @Override
+                public void write(List<ServerPing> batch) {
+                }
+
+                @Override
+                public void close() {
+                    closes.incrementAndGet();
+                }
+            }, SinkOptions.builder().build());
+
+            var start = new CountDownLatch(1);
+            var threads = new ArrayList<Thread>();
+            for (var i = 0; i < 4; i++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                        sink.close();
+                    } catch (InterruptedException | IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            start.countDown();
+            for (var thread : threads) thread.join();
+            assertEquals(1, closes.get(), "round " + round);
+        }
+    }
+
+    @Test
+    public void interruptedCloseWaitsForWriter() throws InterruptedException {
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var writeDone = new AtomicBoolean();
+        var closedWhileWriting = new AtomicBoolean();
+        var sink = new BatchingResultSink(new BatchWriter() {
+            @Override
+            public void write(List<ServerPing> batch) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                writeDone.set(true);
+            }
+
+            @Override
+            public void close() {
+                if (!writeDone.get()) closedWhileWriting.set(true);
+            }
+        }, SinkOptions.builder().flushSize(1).build());
+        sink.accept(PING);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        var interrupted = new AtomicBoolean();
+        var closer = Thread.ofPlatform().start(() -> {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        Thread.sleep(50);
+        closer.interrupt();
+        Thread.sleep(50);
+        release.countDown();
+        closer.join(5000);
+
+        assertFalse(closer.isAlive());
+        assertFalse(closedWhileWriting.get(), "writer was closed during a write");
+        assertTrue(interrupted.get(), "interrupt flag was not restored");
+    }
+
+    @Test
+    public void rejectsNonPositiveFlushInterval() {
+        assertThrows(IllegalArgumentException.class, () -> BatchingResultSink.of(batch -> {
+        }, SinkOptions.builder().flushInterval(Duration.ZERO).build()));
+        assertThrows(IllegalArgumentException.class, () -> BatchingResultSink.of(batch -> {
+        }, SinkOptions.builder().flushInterval(Duration.ofMillis(-1)).build()));
+    }
+}
@@ -0,0 +1,93 @@
+package net.thenextlvl.resolver.store;
+
+import com.google.common.hash.Hashing;
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.Ping;
+import net.thenextlvl.resolver.PingOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FaviconStoreTest {
+    private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void storesAndLoadsFavicons() throws IOException {
+        var store = new FaviconStore(directory.resolve("favicons"));
+        var favicon = dataUri(IMAGE);
+
+        var hash = store.store(favicon);
+        assertEquals(Hashing.sha256().hashBytes(IMAGE).toString(), hash);
+        assertTrue(Files.isRegularFile(store.path(hash)));
+        assertEquals(hash.substring(0, 2), store.path(hash).getParent().getFileName().toString());
+
+        assertArrayEquals(IMAGE, store.load(hash).orElseThrow());
+        assertEquals(favicon, store.loadDataUri(hash).orElseThrow());
+    }
+
+    @Test
+    public void deduplicatesIdenticalFavicons() throws IOException {
+        var store = new FaviconStore(directory);
+        var hash = store.store(dataUri(IMAGE));
+        // line breaks are tolerated by the MIME decoder and do not change the image
+        var wrapped = "data:image/png;base64," + Base64.getMimeEncoder(4, "\r\n".getBytes()).encodeToString(IMAGE);
+        assertEquals(hash, store.store(wrapped));
+        assertEquals(hash, new FaviconStore(directory).store(dataUri(IMAGE)));
+
+        var other = store.store(dataUri(new byte[]{1, 2, 3}));
+        assertNotEquals(hash, other);
+        try (var files = Files.walk(directory)) {
+            assertEquals(2, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    public void loadsNothingForUnknownHashes() throws IOException {
+        var store = new FaviconStore(directory);
+        assertTrue(store.load("0".repeat(64)).isEmpty());
+        assertTrue(store.loadDataUri("0".repeat(64)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> store.load("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.load("g".repeat(64)));
+    }
+
+    @Test
+    public void rejectsMalformedFavicons() throws IOException {
+        var store = new FaviconStore(directory);
+        assertThrows(IllegalArgumentException.class, () -> store.store("data:image/png;base64,not*base64"));
+        assertThrows(IllegalArgumentException.class, () -> store.store("data:image/gif;base64," + Base64.getEncoder().encodeToString(IMAGE)));
+        assertThrows(IllegalArgumentException.class, () -> store.store(Base64.getEncoder().encodeToString(IMAGE)));
+        try (var files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    public void ignoresFaviconHashSentByServer() throws IOException {
+        var status = """
+                {"version":{"name":"1.21","protocol":767},"players":{"max":20,"online":0},\
+                "description":"hi","faviconHash":"%s"}""".formatted("0".repeat(64));
+        try (var server = FakeStatusServer.start(InetAddress.getLoopbackAddress(), () -> status)) {
+            var options = PingOptions.builder(server.getAddress()).faviconStore(new FaviconStore(directory)).build();
+            assertNull(Ping.ping(options).getFaviconHash());
+        }
+    }
+
+    private static String dataUri(byte[] image) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(image);
+    }
+}
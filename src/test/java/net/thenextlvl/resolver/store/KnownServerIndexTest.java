@@ -0,0 +1,141 @@
+package net.thenextlvl.resolver.store;
+
+import net.thenextlvl.resolver.CompactServerPing;
+import net.thenextlvl.resolver.FakeStatusServer;
+import net.thenextlvl.resolver.ServerType;
+import net.thenextlvl.resolver.util.StringDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KnownServerIndexTest {
+    private static final String PAPER = """
+            {"version":{"name":"Paper 1.21.4","protocol":769},\
+            "players":{"max":100,"online":17},"description":"hello"}""";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void survivesReopen() throws IOException {
+        var file = directory.resolve("known.idx");
+        var address = new InetSocketAddress("203.0.113.7", 25565);
+        var ping = FakeStatusServer.decode(address, PAPER);
+        var brand = ServerType.guess(ping).brand();
+
+        // a dictionary of another process, in which the brand has a different id than in the index
+        var dictionary = new StringDictionary();
+        for (var i = 0; i < 5; i++) dictionary.encode("unrelated " + i);
+        var compact = CompactServerPing.of(ping, dictionary);
+
+        try (var index = KnownServerIndex.open(file, 1000)) {
+            index.upsert(compact, 1_000L);
+            index.upsert(KnownServerIndex.key(new InetSocketAddress("198.51.100.1", 25566)), 2_000L, 5, 47, index.brandId("Velocity"), 3);
+        }
+
+        try (var index = KnownServerIndex.open(file, 16)) {
+            assertEquals(1024, index.capacity());
+            assertEquals(2, index.size());
+
+            var entry = index.get(KnownServerIndex.key(address));
+            assertNotNull(entry);
+            assertEquals(1_000L, entry.lastSeen());
+            assertEquals(42, entry.latency());
+            assertEquals(769, entry.protocol());
+            assertEquals(17, entry.peakPlayers());
+            assertEquals(brand, index.brand(entry.brand()));
+
+            var proxy = index.get(KnownServerIndex.key(new InetSocketAddress("198.51.100.1", 25566)));
+            assertNotNull(proxy);
+            assertEquals("Velocity", index.brand(proxy.brand()));
+            assertEquals(proxy.brand(), index.brandId("Velocity"));
+            assertNull(index.get(KnownServerIndex.key(new InetSocketAddress("198.51.100.1", 25565))));
+        }
+    }
+
+    @Test
+    public void keepsGrowingValues() throws IOException {
+        try (var index = KnownServerIndex.open(directory.resolve("known.idx"), 16)) {
+            var key = KnownServerIndex.key(new InetSocketAddress("192.0.2.1", 25565));
+            index.upsert(key, 2_000L, 10, 1, StringDictionary.NULL, 50);
+            index.upsert(key, 1_000L, 20, 2, StringDictionary.NULL, 10);
+            var entry = index.get(key);
+            assertNotNull(entry);
+            assertEquals(2_000L, entry.lastSeen());
+            assertEquals(50, entry.peakPlayers());
+            assertEquals(20, entry.latency());
+            assertNull(index.brand(entry.brand()));
+        }
+    }
+
+    @Test
+    public void recoversInterruptedCreation() throws IOException {
+        // the header was mapped but not written yet
+        var empty = directory.resolve("empty.idx");
+        Files.write(empty, new byte[64]);
+        try (var index = KnownServerIndex.open(empty, 16)) {
+            assertEquals(16, index.capacity());
+            assertEquals(0, index.size());
+        }
+
+        // the header was written but the slots were not allocated yet
+        var headerOnly = directory.resolve("header.idx");
+        try (var index = KnownServerIndex.open(headerOnly, 64)) {
+            index.brandId("Paper");
+        }
+        try (var channel = java.nio.channels.FileChannel.open(headerOnly, StandardOpenOption.WRITE)) {
+            channel.truncate(64);
+        }
+        try (var index = KnownServerIndex.open(headerOnly, 16)) {
+            assertEquals(64, index.capacity());
+            var key = KnownServerIndex.key(new InetSocketAddress("192.0.2.1", 25565));
+            index.upsert(key, 1L, 1, 1, index.brandId("Paper"), 1);
+            assertEquals(0, index.brandId("Paper"));
+            assertNotNull(index.get(key));
+        }
+    }
+
+    @Test
+    public void dropsTornBrandRecord() throws IOException {
+        var file = directory.resolve("known.idx");
+        try (var index = KnownServerIndex.open(file, 16)) {
+            assertEquals(0, index.brandId("Paper"));
+            assertEquals(1, index.brandId("Purpur"));
+        }
+        // a record whose length was written but not its bytes
+        Files.write(directory.resolve("known.idx.brands"), new byte[]{0, 10, 'V'}, StandardOpenOption.APPEND);
+        try (var index = KnownServerIndex.open(file, 16)) {
+            assertEquals("Purpur", index.brand(1));
+            assertEquals(2, index.brandId("Velocity"));
+        }
+        try (var index = KnownServerIndex.open(file, 16)) {
+            assertEquals("Velocity", index.brand(2));
+        }
+    }
+
+    @Test
+    public void rejectsForeignFiles() throws IOException {
+        var file = directory.resolve("foreign.idx");
+        Files.writeString(file, "definitely not an index");
+        assertThrows(IOException.class, () -> KnownServerIndex.open(file, 16));
+        assertEquals("definitely not an index", Files.readString(file));
+
+        var truncated = directory.resolve("truncated.idx");
+        var header = ByteBuffer.allocate(128).order(ByteOrder.nativeOrder());
+        header.putLong(0, 0x4B4E4F574E494458L).putInt(8, 2).putLong(16, 1024);
+        Files.write(truncated, header.array());
+        assertThrows(IOException.class, () -> KnownServerIndex.open(truncated, 16));
+    }
+}
@@ -0,0 +1,111 @@
+package net.thenextlvl.resolver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+    @Test
+    void roundsUpToSizeClasses() {
+        var pool = new BufferPool(100_000, 4, Long.MAX_VALUE);
+        assertEquals(1024, pool.acquire(0).length);
+        assertEquals(1024, pool.acquire(1).length);
+        assertEquals(1024, pool.acquire(1024).length);
+        assertEquals(2048, pool.acquire(1025).length);
+        assertEquals(131072, pool.acquire(100_000).length);
+        // larger than the largest size class, allocated with the exact size
+        assertEquals(131073, pool.acquire(131073).length);
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(-1));
+    }
+
+    @Test
+    void reusesReleasedBuffers() {
+        var pool = new BufferPool(8192, 2, Long.MAX_VALUE);
+        var first = pool.acquire(3000);
+        var second = pool.acquire(3000);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(8192, pool.getRetained());
+
+        var reused = pool.acquire(2049);
+        assertTrue(reused == first || reused == second);
+        assertEquals(4096, pool.getRetained());
+        assertSame(reused == first ? second : first, pool.acquire(4096));
+        assertEquals(0, pool.getRetained());
+    }
+
+    @Test
+    void keepsAtMostPerClassBuffers() {
+        var pool = new BufferPool(4096, 1, Long.MAX_VALUE);
+        var first = pool.acquire(1024);
+        var second = pool.acquire(1024);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1024, pool.getRetained());
+        assertSame(first, pool.acquire(1024));
+        assertNotSame(second, pool.acquire(1024));
+    }
+
+    @Test
+    void ignoresForeignBuffers() {
+        var pool = new BufferPool(4096, 4, Long.MAX_VALUE);
+        pool.release(null);
+        pool.release(new byte[1000]);
+        pool.release(new byte[512]);
+        pool.release(new byte[8192]);
+        assertEquals(0, pool.getRetained());
+    }
+
+    @Test
+    void capsRetainedBytes() {
+        var pool = new BufferPool(65536, 8, 100_000);
+        var buffers = new byte[8][];
+        for (var i = 0; i < buffers.length; i++) buffers[i] = pool.acquire(65536);
+        for (var buffer : buffers) pool.release(buffer);
+        assertEquals(65536, pool.getRetained());
+
+        // smaller buffers still fit next to the large one
+        pool.release(pool.acquire(16384));
+        pool.release(new byte[16384]);
+        assertEquals(65536 + 2 * 16384, pool.getRetained());
+        pool.release(new byte[16384]);
+        assertEquals(65536 + 2 * 16384, pool.getRetained());
+    }
+
+    @Test
+    void staysWithinLimitsUnderContention() throws InterruptedException {
+        var pool = new BufferPool(8192, 4, 20_000);
+        var start = new CountDownLatch(1);
+        var threads = new Thread[8];
+        var handedOut = ConcurrentHashMap.<byte[]>newKeySet();
+        var duplicates = new AtomicInteger();
+        for (var t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (var i = 0; i < 10_000; i++) {
+                    var buffer = pool.acquire(1 << (10 + i % 4));
+                    // a buffer must never be handed to two threads at once
+                    if (!handedOut.add(buffer)) duplicates.incrementAndGet();
+                    handedOut.remove(buffer);
+                    pool.release(buffer);
+                }
+            });
+        }
+        start.countDown();
+        for (var thread : threads) thread.join();
+        assertEquals(0, duplicates.get());
+        assertTrue(pool.getRetained() <= 20_000, "retained " + pool.getRetained());
+    }
+}
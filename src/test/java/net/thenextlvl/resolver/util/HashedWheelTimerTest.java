@@ -0,0 +1,127 @@
+package net.thenextlvl.resolver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerTest {
+    @Test
+    void expiresInDeadlineOrder() throws InterruptedException {
+        try (var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 64)) {
+            var order = new CopyOnWriteArrayList<Integer>();
+            var latch = new CountDownLatch(4);
+            for (var delay : new int[]{120, 30, 200, 70}) {
+                timer.schedule(() -> {
+                    order.add(delay);
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(30, 70, 120, 200), order);
+        }
+    }
+
+    @Test
+    void neverExpiresEarly() throws InterruptedException {
+        try (var timer = new HashedWheelTimer("Test Timer", 5, TimeUnit.MILLISECONDS, 16)) {
+            var latch = new CountDownLatch(50);
+            var early = new AtomicInteger();
+            for (var i = 0; i < 50; i++) {
+                var delay = 10L + i * 7L;
+                var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                timer.schedule(() -> {
+                    if (System.nanoTime() < deadline) early.incrementAndGet();
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, early.get());
+        }
+    }
+
+    @Test
+    void waitsForMoreThanOneRotation() throws InterruptedException {
+        // 8 buckets of 10ms make a rotation of 80ms, so the timeout has to survive several visits of its bucket
+        try (var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 8)) {
+            var start = System.nanoTime();
+            var fired = new AtomicLong();
+            var latch = new CountDownLatch(1);
+            var timeout = timer.schedule(() -> {
+                fired.set(System.nanoTime());
+                latch.countDown();
+            }, 300, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(timeout.isExpired());
+            var elapsed = TimeUnit.NANOSECONDS.toMillis(fired.get() - start);
+            assertTrue(elapsed >= 300 && elapsed < 1000, "expired after " + elapsed + "ms");
+        }
+    }
+
+    @Test
+    void cancelledTimeoutsNeverRun() throws InterruptedException {
+        try (var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 8)) {
+            var ran = new AtomicInteger();
+            var cancelled = timer.schedule(ran::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+            var farCancelled = timer.schedule(ran::incrementAndGet, 150, TimeUnit.MILLISECONDS);
+            var latch = new CountDownLatch(1);
+            timer.schedule(latch::countDown, 250, TimeUnit.MILLISECONDS);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            Thread.sleep(30); // let the far timeout reach its bucket before it is cancelled
+            assertTrue(farCancelled.cancel());
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, ran.get());
+            assertTrue(cancelled.isCancelled());
+            assertFalse(cancelled.isExpired());
+            assertTrue(farCancelled.isCancelled());
+        }
+    }
+
+    @Test
+    void cancelAfterExpiryFails() throws InterruptedException {
+        try (var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 8)) {
+            var latch = new CountDownLatch(1);
+            var timeout = timer.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertFalse(timeout.cancel());
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.isCancelled());
+        }
+    }
+
+    @Test
+    void survivesFailingTask() throws InterruptedException {
+        try (var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 8)) {
+            var latch = new CountDownLatch(1);
+            timer.schedule(() -> {
+                throw new IllegalStateException("expected by the test");
+            }, 10, TimeUnit.MILLISECONDS);
+            timer.schedule(latch::countDown, 40, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closeDiscardsPendingTimeouts() throws InterruptedException {
+        var timer = new HashedWheelTimer("Test Timer", 10, TimeUnit.MILLISECONDS, 8);
+        var ran = new AtomicInteger();
+        var timeout = timer.schedule(ran::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        timer.close();
+        assertThrows(IllegalStateException.class, () -> timer.schedule(ran::incrementAndGet, 0, TimeUnit.MILLISECONDS));
+        Thread.sleep(200);
+        assertEquals(0, ran.get());
+        assertFalse(timeout.isExpired());
+    }
+}
@@ -0,0 +1,46 @@
+package net.thenextlvl.resolver.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapLongPairSetTest {
+    @Test
+    public void growsPastExpectedSize() {
+        try (var set = new OffHeapLongPairSet(4)) {
+            var initial = set.capacity();
+            for (var i = 0L; i < 10_000; i++) assertTrue(set.add(i, ~i));
+            assertTrue(set.capacity() > initial);
+            assertEquals(10_000, set.size());
+            for (var i = 0L; i < 10_000; i++) {
+                assertTrue(set.contains(i, ~i));
+                assertFalse(set.add(i, ~i));
+            }
+            assertFalse(set.contains(10_000, ~10_000L));
+        }
+    }
+
+    @Test
+    public void tracksZeroSeparately() {
+        try (var set = new OffHeapLongPairSet(0)) {
+            assertFalse(set.contains(0, 0));
+            assertTrue(set.add(0, 0));
+            assertFalse(set.add(0, 0));
+            assertTrue(set.contains(0, 0));
+            assertEquals(1, set.size());
+        }
+    }
+
+    @Test
+    public void rejectsUseAfterClose() {
+        var set = new OffHeapLongPairSet(16);
+        set.add(1, 2);
+        set.close();
+        assertEquals(0, set.capacity());
+        assertThrows(IllegalStateException.class, () -> set.add(3, 4));
+        assertThrows(IllegalStateException.class, () -> set.contains(1, 2));
+    }
+}
@@ -0,0 +1,89 @@
+package net.thenextlvl.resolver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StringDictionaryTest {
+    @Test
+    public void assignsDenseIds() {
+        var dictionary = new StringDictionary();
+        assertEquals(0, dictionary.encode("a"));
+        assertEquals(1, dictionary.encode("b"));
+        assertEquals(0, dictionary.encode("a"));
+        assertEquals(StringDictionary.NULL, dictionary.encode(null));
+        assertEquals(StringDictionary.NULL, dictionary.lookup("c"));
+        assertEquals("b", dictionary.decode(1));
+        assertNull(dictionary.decode(StringDictionary.NULL));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.decode(2));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void decodesIdsSeenByOtherThreads() throws InterruptedException {
+        var dictionary = new StringDictionary();
+        var strings = 200_000;
+        var writers = 4;
+        var readers = 4;
+        var done = new AtomicBoolean();
+        var start = new CountDownLatch(1);
+        var errors = new ConcurrentLinkedQueue<Throwable>();
+        var threads = new ArrayList<Thread>();
+
+        for (var w = 0; w < writers; w++) {
+            var offset = w;
+            threads.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                // writers overlap on every string, so ids are assigned under contention
+                for (var i = offset; i < strings + offset; i++) {
+                    var value = "value-" + (i % strings);
+                    var id = dictionary.encode(value);
+                    if (!value.equals(dictionary.decode(id))) errors.add(new AssertionError(value + " decoded wrong"));
+                }
+            }));
+        }
+        var readerThreads = new ArrayList<Thread>();
+        for (var r = 0; r < readers; r++) {
+            readerThreads.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                var random = ThreadLocalRandom.current();
+                while (!done.get()) {
+                    var value = "value-" + random.nextInt(strings);
+                    try {
+                        var id = dictionary.lookup(value);
+                        if (id != StringDictionary.NULL && !value.equals(dictionary.decode(id)))
+                            errors.add(new AssertionError(value + " decoded wrong"));
+                    } catch (RuntimeException e) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+
+        start.countDown();
+        for (var thread : threads) thread.join();
+        done.set(true);
+        for (var thread : readerThreads) thread.join();
+
+        assertTrue(errors.isEmpty(), "first error: " + errors.peek());
+        assertEquals(strings, dictionary.size());
+        for (var id = 0; id < strings; id++) assertEquals(id, dictionary.lookup(dictionary.decode(id)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}